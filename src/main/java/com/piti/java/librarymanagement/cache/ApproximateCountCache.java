@@ -0,0 +1,95 @@
+package com.piti.java.librarymanagement.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the last known total of each listing query shape. Readers never wait for a
+ * count: a missing or stale total is recomputed on a background thread and the
+ * caller gets whatever value is currently cached.
+ */
+@Component
+@Slf4j
+public class ApproximateCountCache {
+	private final TaskExecutor taskExecutor;
+	private final Duration timeToLive;
+	private final int maxEntries;
+	// Access-ordered so that, once full, the least recently read total is the one evicted
+	private final Map<String, CachedCount> counts = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true));
+	private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+	public ApproximateCountCache(
+			@Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+			@Value("${application.cache.approximate-count.time-to-live:5m}") Duration timeToLive,
+			@Value("${application.cache.approximate-count.max-entries:10000}") int maxEntries) {
+		this.taskExecutor = taskExecutor;
+		this.timeToLive = timeToLive;
+		this.maxEntries = maxEntries;
+	}
+
+	public OptionalLong get(String key, LongSupplier counter) {
+		CachedCount cached = counts.get(key);
+		if (cached == null || isExpired(cached, Instant.now())) {
+			refresh(key, counter);
+		}
+		return cached == null ? OptionalLong.empty() : OptionalLong.of(cached.count());
+	}
+
+	private void refresh(String key, LongSupplier counter) {
+		if (!refreshing.add(key)) {
+			return;
+		}
+		try {
+			taskExecutor.execute(() -> {
+				try {
+					long count = counter.getAsLong();
+					store(key, new CachedCount(count, Instant.now()));
+				} catch (RuntimeException e) {
+					log.warn("Approximate count for {} could not be refreshed", key, e);
+				} finally {
+					refreshing.remove(key);
+				}
+			});
+		} catch (TaskRejectedException e) {
+			refreshing.remove(key);
+		}
+	}
+
+	private void store(String key, CachedCount value) {
+		synchronized (counts) {
+			if (counts.size() >= maxEntries && !counts.containsKey(key)) {
+				Instant now = Instant.now();
+				counts.values().removeIf(cached -> isExpired(cached, now));
+				if (counts.size() >= maxEntries && !counts.isEmpty()) {
+					Iterator<String> eldest = counts.keySet().iterator();
+					eldest.next();
+					eldest.remove();
+				}
+			}
+			counts.put(key, value);
+		}
+	}
+
+	private boolean isExpired(CachedCount cached, Instant now) {
+		return cached.computedAt().plus(timeToLive).isBefore(now);
+	}
+
+	private record CachedCount(long count, Instant computedAt) {
+	}
+}
@@ -2,6 +2,7 @@ package com.piti.java.librarymanagement.config.security;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -54,6 +55,8 @@ public class SecurityConfig {
 //			 	                		   "/swagger-ui.html"
                                 )
                                     .permitAll()
+                                .requestMatchers(HttpMethod.GET, "/books/*/cover")
+                                    .permitAll()
                                 .anyRequest()
                                     .authenticated()
                 )
@@ -1,24 +1,53 @@
 package com.piti.java.librarymanagement.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.piti.java.librarymanagement.dto.BookBatchResponse;
+import com.piti.java.librarymanagement.dto.BookFields;
+import com.piti.java.librarymanagement.dto.BookImportResponse;
 import com.piti.java.librarymanagement.dto.BookRequest;
 import com.piti.java.librarymanagement.dto.BookResponse;
 import com.piti.java.librarymanagement.dto.BorrowedBookResponse;
+import com.piti.java.librarymanagement.dto.BulkOperationResponse;
+import com.piti.java.librarymanagement.dto.CountMode;
+import com.piti.java.librarymanagement.dto.CursorPageResponse;
+import com.piti.java.librarymanagement.dto.ExportFormat;
+import com.piti.java.librarymanagement.dto.ExportScope;
 import com.piti.java.librarymanagement.dto.PageResponse;
+import com.piti.java.librarymanagement.file.CoverFile;
+import com.piti.java.librarymanagement.file.CoverSize;
+import com.piti.java.librarymanagement.file.FileStreamingService;
+import com.piti.java.librarymanagement.service.BookExportService;
+import com.piti.java.librarymanagement.service.BookImportService;
 import com.piti.java.librarymanagement.service.BookService;
+import com.piti.java.librarymanagement.service.ETagService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -27,26 +56,74 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 //@Tag(name = "Book")
 public class BookController {
+	// Clients may keep the response but must revalidate it with its ETag before reuse
+	private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+	private static final CacheControl SHARED_COVER = CacheControl.maxAge(Duration.ofDays(1)).cachePublic();
+	private static final CacheControl OWNER_COVER = CacheControl.maxAge(Duration.ofDays(1)).cachePrivate();
 
 	private final BookService bookService;
+	private final FileStreamingService fileStreamingService;
+	private final BookImportService bookImportService;
+	private final BookExportService bookExportService;
+	private final ETagService eTagService;
+	private final ResponseMediaTypes responseMediaTypes;
 	
 	@PostMapping
     public ResponseEntity<Integer> saveBook(@Valid @RequestBody BookRequest bookRequest, Authentication connectedUser) {
         return ResponseEntity.ok(bookService.save(bookRequest, connectedUser));
     }
 	
+	@PostMapping(value = "/import", consumes = { "text/csv", "application/x-ndjson" })
+	public ResponseEntity<BookImportResponse> importBooks(
+			@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+			InputStream body,
+			Authentication connectedUser) throws IOException {
+		return ResponseEntity.ok(bookImportService.importBooks(body, contentType, connectedUser));
+	}
+	
+	@GetMapping("/export")
+	public ResponseEntity<StreamingResponseBody> exportBooks(
+			@RequestParam(name = "format", defaultValue = "NDJSON", required = false) ExportFormat format,
+			@RequestParam(name = "scope", defaultValue = "CATALOG", required = false) ExportScope scope,
+			Authentication connectedUser) {
+		StreamingResponseBody body = output -> bookExportService.exportBooks(output, format, scope, connectedUser);
+		return ResponseEntity.ok()
+				.contentType(format == ExportFormat.CSV ? MediaType.valueOf("text/csv") : MediaType.valueOf("application/x-ndjson"))
+				.body(body);
+	}
+	
 	@GetMapping("/{book-id}")
-	public ResponseEntity<BookResponse> findBookById(@PathVariable("book-id") Integer bookId) {
-	    return ResponseEntity.ok(bookService.findById(bookId));
+	public ResponseEntity<BookResponse> findBookById(
+			@PathVariable("book-id") Integer bookId,
+			@RequestParam(name = "fields", required = false) String fields,
+			WebRequest webRequest) {
+		BookFields bookFields = BookFields.parse(fields);
+		if (webRequest.checkNotModified(eTagService.findBookETag(bookId, bookFields, responseMediaTypes.select(webRequest)))) {
+			return null;
+		}
+	    return ResponseEntity.ok().cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).body(bookService.findById(bookId, bookFields));
+	}
+	
+	@GetMapping(params = "ids")
+	public ResponseEntity<BookBatchResponse> findAllBooksByIds(
+			@RequestParam(name = "ids") List<Integer> bookIds,
+			@RequestParam(name = "fields", required = false) String fields) {
+		return ResponseEntity.ok(bookService.findAllByIds(bookIds, BookFields.parse(fields)));
 	}
 	
 	@GetMapping
     public ResponseEntity<PageResponse<BookResponse>> findAllBooks(
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
-            Authentication connectedUser) {
-		
-        return ResponseEntity.ok(bookService.findAllBooks(page, size, connectedUser));
+            @RequestParam(name = "count", defaultValue = "EXACT", required = false) CountMode count,
+            @RequestParam(name = "fields", required = false) String fields,
+            Authentication connectedUser,
+            WebRequest webRequest) {
+        BookFields bookFields = BookFields.parse(fields);
+        if (webRequest.checkNotModified(eTagService.findAllBooksETag(page, size, count, bookFields, responseMediaTypes.select(webRequest), connectedUser))) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).body(bookService.findAllBooks(page, size, count, bookFields, connectedUser));
     }
 	
 	
@@ -54,9 +131,15 @@ public class BookController {
     public ResponseEntity<PageResponse<BookResponse>> findAllBooksByOwner(
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
-            Authentication connectedUser) {
-    	
-        return ResponseEntity.ok(bookService.findAllBooksByOwner(page, size, connectedUser));
+            @RequestParam(name = "count", defaultValue = "EXACT", required = false) CountMode count,
+            @RequestParam(name = "fields", required = false) String fields,
+            Authentication connectedUser,
+            WebRequest webRequest) {
+        BookFields bookFields = BookFields.parse(fields);
+        if (webRequest.checkNotModified(eTagService.findAllBooksByOwnerETag(page, size, count, bookFields, responseMediaTypes.select(webRequest), connectedUser))) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).body(bookService.findAllBooksByOwner(page, size, count, bookFields, connectedUser));
     }
     
     
@@ -64,9 +147,13 @@ public class BookController {
     public ResponseEntity<PageResponse<BorrowedBookResponse>> findAllBorrowedBooks(
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
-            Authentication connectedUser) {
-    	
-        return ResponseEntity.ok(bookService.findAllBorrowedBooks(page, size, connectedUser));
+            @RequestParam(name = "count", defaultValue = "EXACT", required = false) CountMode count,
+            Authentication connectedUser,
+            WebRequest webRequest) {
+        if (webRequest.checkNotModified(eTagService.findAllBorrowedBooksETag(page, size, count, responseMediaTypes.select(webRequest), connectedUser))) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).body(bookService.findAllBorrowedBooks(page, size, count, connectedUser));
     }
     
     
@@ -74,9 +161,94 @@ public class BookController {
     public ResponseEntity<PageResponse<BorrowedBookResponse>> findAllReturnedBooks(
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "count", defaultValue = "EXACT", required = false) CountMode count,
+            Authentication connectedUser,
+            WebRequest webRequest) {
+        if (webRequest.checkNotModified(eTagService.findAllReturnedBooksETag(page, size, count, responseMediaTypes.select(webRequest), connectedUser))) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).body(bookService.findAllReturnedBooks(page, size, count, connectedUser));
+    }
+    
+    
+    @GetMapping("/search")
+    public ResponseEntity<PageResponse<BookResponse>> searchBooks(
+            @RequestParam(name = "query") String query,
+            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "fields", required = false) String fields,
+            Authentication connectedUser) {
+    	
+        return ResponseEntity.ok(bookService.searchBooks(query, page, size, BookFields.parse(fields), connectedUser));
+    }
+    
+    
+    @GetMapping("/search/fuzzy")
+    public ResponseEntity<List<BookResponse>> fuzzySearchBooks(
+            @RequestParam(name = "query") String query,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "fields", required = false) String fields,
+            Authentication connectedUser) {
+    	
+        return ResponseEntity.ok(bookService.fuzzySearchBooks(query, size, BookFields.parse(fields), connectedUser));
+    }
+    
+    
+    @GetMapping("/isbn/{isbn}")
+    public ResponseEntity<List<BookResponse>> findAllBooksByIsbn(
+            @PathVariable("isbn") String isbn,
+            @RequestParam(name = "fields", required = false) String fields,
+            Authentication connectedUser) {
+    	
+        return ResponseEntity.ok(bookService.findAllBooksByIsbn(isbn, BookFields.parse(fields), connectedUser));
+    }
+    
+    
+    @PostMapping("/isbn/exists")
+    public ResponseEntity<Map<String, Boolean>> findExistingIsbns(@RequestBody List<String> isbns) {
+        return ResponseEntity.ok(bookService.findExistingIsbns(isbns));
+    }
+    
+    
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageResponse<BookResponse>> scrollAllBooks(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "fields", required = false) String fields,
+            Authentication connectedUser) {
+    	
+        return ResponseEntity.ok(bookService.findAllBooks(cursor, size, BookFields.parse(fields), connectedUser));
+    }
+    
+    
+    @GetMapping("/owner/scroll")
+    public ResponseEntity<CursorPageResponse<BookResponse>> scrollAllBooksByOwner(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "fields", required = false) String fields,
             Authentication connectedUser) {
     	
-        return ResponseEntity.ok(bookService.findAllReturnedBooks(page, size, connectedUser));
+        return ResponseEntity.ok(bookService.findAllBooksByOwner(cursor, size, BookFields.parse(fields), connectedUser));
+    }
+    
+    
+    @GetMapping("/borrowed/scroll")
+    public ResponseEntity<CursorPageResponse<BorrowedBookResponse>> scrollAllBorrowedBooks(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            Authentication connectedUser) {
+    	
+        return ResponseEntity.ok(bookService.findAllBorrowedBooks(cursor, size, connectedUser));
+    }
+    
+    
+    @GetMapping("/returned/scroll")
+    public ResponseEntity<CursorPageResponse<BorrowedBookResponse>> scrollAllReturnedBooks(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            Authentication connectedUser) {
+    	
+        return ResponseEntity.ok(bookService.findAllReturnedBooks(cursor, size, connectedUser));
     }
     
     
@@ -107,6 +279,33 @@ public class BookController {
     }
     
     
+    @PostMapping("borrow")
+    public ResponseEntity<BulkOperationResponse> borrowBooks(
+            @RequestBody List<Integer> bookIds,
+            Authentication connectedUser) {
+    	
+        return ResponseEntity.ok(bookService.borrowBooks(bookIds, connectedUser));
+    }
+    
+    
+    @PostMapping("borrow/{book-id}/waitlist")
+    public ResponseEntity<Integer> reserveBook(
+            @PathVariable("book-id") Integer bookId,
+            Authentication connectedUser) {
+    	
+        return ResponseEntity.ok(bookService.reserveBook(bookId, connectedUser));
+    }
+    
+    
+    @DeleteMapping("borrow/{book-id}/waitlist")
+    public ResponseEntity<Integer> cancelReservation(
+            @PathVariable("book-id") Integer bookId,
+            Authentication connectedUser) {
+    	
+        return ResponseEntity.ok(bookService.cancelReservation(bookId, connectedUser));
+    }
+    
+    
     @PatchMapping("borrow/return/{book-id}")
     public ResponseEntity<Integer> returnBorrowBook(
             @PathVariable("book-id") Integer bookId,
@@ -125,6 +324,33 @@ public class BookController {
     }
     
     
+    @PatchMapping("borrow/return/approve")
+    public ResponseEntity<BulkOperationResponse> approveReturnBorrowBooks(
+            @RequestBody(required = false) List<Integer> bookIds,
+            Authentication connectedUser) {
+    	
+        return ResponseEntity.ok(bookService.approveReturnBorrowedBooks(bookIds, connectedUser));
+    }
+    
+    
+    @PatchMapping("/archived")
+    public ResponseEntity<BulkOperationResponse> archiveBooks(
+            @RequestBody List<Integer> bookIds,
+            Authentication connectedUser) {
+    	
+        return ResponseEntity.ok(bookService.archiveBooks(bookIds, connectedUser));
+    }
+    
+    
+    @PatchMapping("/unshared")
+    public ResponseEntity<BulkOperationResponse> unshareBooks(
+            @RequestBody List<Integer> bookIds,
+            Authentication connectedUser) {
+    	
+        return ResponseEntity.ok(bookService.unshareBooks(bookIds, connectedUser));
+    }
+    
+    
     @PostMapping(value = "/cover/{book-id}", consumes = "multipart/form-data")
     public ResponseEntity<?> uploadBookCoverPicture(
             @PathVariable("book-id") Integer bookId,
@@ -136,4 +362,26 @@ public class BookController {
         return ResponseEntity.accepted().build();
     }
     
+    
+    @GetMapping("/{book-id}/cover")
+    public void findBookCover(
+            @PathVariable("book-id") Integer bookId,
+            @RequestParam(name = "size", defaultValue = "ORIGINAL", required = false) CoverSize size,
+            Authentication connectedUser,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+    	
+    	CoverFile cover = bookService.findBookCover(bookId, size, connectedUser);
+    	fileStreamingService.streamFile(cover.path(), coverCacheControl(cover), request, response);
+    }
+    
+    
+    private static CacheControl coverCacheControl(CoverFile cover) {
+    	if (!cover.requestedSize()) {
+    		// The thumbnail is not generated yet, caches must not keep the original under its URL
+    		return cover.shared() ? CacheControl.noCache() : REVALIDATE;
+    	}
+    	return cover.shared() ? SHARED_COVER : OWNER_COVER;
+    }
+    
 }
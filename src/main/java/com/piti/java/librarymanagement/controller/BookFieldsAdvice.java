@@ -0,0 +1,36 @@
+package com.piti.java.librarymanagement.controller;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.piti.java.librarymanagement.dto.BookFields;
+
+/**
+ * Narrows the serialized {@code BookResponse}s to the properties named by the
+ * {@code fields} request parameter, whatever Jackson format was negotiated.
+ */
+@RestControllerAdvice(assignableTypes = BookController.class)
+public class BookFieldsAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+	@Override
+	protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+			MethodParameter returnType, ServerHttpRequest request) {
+		if (!(request instanceof ServletServerHttpRequest servletRequest)) {
+			return;
+		}
+		BookFields fields = BookFields.parse(servletRequest.getServletRequest().getParameter("fields"));
+		if (fields.isAll()) {
+			return;
+		}
+		bodyContainer.setFilters(new SimpleFilterProvider()
+				.addFilter(BookFields.FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(fields.names()))
+				.setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+	}
+}
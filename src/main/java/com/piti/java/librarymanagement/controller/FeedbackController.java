@@ -1,5 +1,7 @@
 package com.piti.java.librarymanagement.controller;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -9,10 +11,12 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.piti.java.librarymanagement.dto.FeedbackRequest;
 import com.piti.java.librarymanagement.dto.FeedbackResponse;
 import com.piti.java.librarymanagement.dto.PageResponse;
+import com.piti.java.librarymanagement.service.ETagService;
 import com.piti.java.librarymanagement.service.FeedbackService;
 
 import jakarta.validation.Valid;
@@ -23,7 +27,11 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 //@Tag(name = "Feedback")
 public class FeedbackController {
+	private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+	
 	private final FeedbackService feedbackService;
+	private final ETagService eTagService;
+	private final ResponseMediaTypes responseMediaTypes;
 
     @PostMapping
     public ResponseEntity<Integer> saveFeedback(@Valid @RequestBody FeedbackRequest request,
@@ -36,7 +44,11 @@ public class FeedbackController {
             @PathVariable("book-id") Integer bookId,
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
-            Authentication connectedUser) {
-        return ResponseEntity.ok(feedbackService.findAllFeedbacksByBook(bookId, page, size, connectedUser));
+            Authentication connectedUser,
+            WebRequest webRequest) {
+        if (webRequest.checkNotModified(eTagService.findAllFeedbacksByBookETag(bookId, page, size, responseMediaTypes.select(webRequest), connectedUser))) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).body(feedbackService.findAllFeedbacksByBook(bookId, page, size, connectedUser));
     }
 }
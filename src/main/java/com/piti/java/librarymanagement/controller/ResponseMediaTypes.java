@@ -0,0 +1,43 @@
+package com.piti.java.librarymanagement.controller;
+
+import java.util.List;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Picks the media type the Jackson converters will write for a request, so the ETag of a
+ * JSON response never validates a cached CBOR or Smile one and the other way round.
+ */
+@Component
+@RequiredArgsConstructor
+public class ResponseMediaTypes {
+	// In converter registration order, which is what a wildcard Accept resolves to
+	private static final List<MediaType> PRODUCIBLE = List.of(
+			MediaType.APPLICATION_JSON,
+			new MediaType("application", "x-jackson-smile"),
+			MediaType.APPLICATION_CBOR);
+
+	private final ContentNegotiationManager contentNegotiationManager;
+
+	public MediaType select(WebRequest webRequest) {
+		try {
+			for (MediaType accepted : contentNegotiationManager.resolveMediaTypes((NativeWebRequest) webRequest)) {
+				for (MediaType producible : PRODUCIBLE) {
+					if (accepted.isCompatibleWith(producible)) {
+						return producible;
+					}
+				}
+			}
+		} catch (HttpMediaTypeNotAcceptableException e) {
+			// The converters reject such a request anyway, no body is written
+		}
+		return MediaType.APPLICATION_JSON;
+	}
+}
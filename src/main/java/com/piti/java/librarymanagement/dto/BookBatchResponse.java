@@ -0,0 +1,20 @@
+package com.piti.java.librarymanagement.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookBatchResponse {
+    // In the order the ids were requested
+    private List<BookResponse> books;
+    private List<Integer> missingIds;
+}
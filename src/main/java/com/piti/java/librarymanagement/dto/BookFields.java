@@ -0,0 +1,59 @@
+package com.piti.java.librarymanagement.dto;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.piti.java.librarymanagement.exception.OperationNotPermittedException;
+
+/**
+ * The {@link BookResponse} properties a caller asked for with {@code fields=}. Properties
+ * left out are neither serialized nor, where it matters, read from the database.
+ */
+public record BookFields(Set<String> names) {
+	public static final String FILTER = "bookFields";
+	public static final BookFields ALL = new BookFields(null);
+
+	private static final Set<String> KNOWN_NAMES = Arrays.stream(BookResponse.class.getDeclaredFields())
+			.filter(field -> !Modifier.isStatic(field.getModifiers()))
+			.map(Field::getName)
+			.collect(Collectors.toUnmodifiableSet());
+
+	public static BookFields parse(String fields) {
+		if (StringUtils.isBlank(fields)) {
+			return ALL;
+		}
+		Set<String> names = new TreeSet<>();
+		for (String name : fields.split(",")) {
+			String trimmed = name.trim();
+			if (!KNOWN_NAMES.contains(trimmed)) {
+				throw new OperationNotPermittedException("Unknown book field:: " + trimmed);
+			}
+			names.add(trimmed);
+		}
+		return new BookFields(names);
+	}
+
+	public boolean isAll() {
+		return names == null;
+	}
+
+	public boolean includes(String name) {
+		return isAll() || names.contains(name);
+	}
+
+	public boolean withSynopsis() {
+		return includes("synopsis");
+	}
+
+	// Stable form, used to tell representations apart in ETags
+	@Override
+	public String toString() {
+		return isAll() ? "*" : String.join(",", names);
+	}
+}
@@ -0,0 +1,9 @@
+package com.piti.java.librarymanagement.dto;
+
+import java.util.Set;
+
+public record BookImportError(
+        long line,
+        Set<String> errors
+) {
+}
@@ -0,0 +1,22 @@
+package com.piti.java.librarymanagement.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookImportResponse {
+    private long imported;
+    private long rejected;
+    // Capped so a completely broken file cannot grow the report without bound
+    private List<BookImportError> errors;
+    private boolean errorsTruncated;
+}
@@ -1,7 +1,10 @@
 package com.piti.java.librarymanagement.dto;
 
+import com.piti.java.librarymanagement.validation.ValidIsbn;
+
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 
 public record BookRequest(
         Integer id,
@@ -15,12 +18,17 @@ public record BookRequest(
         
         @NotNull(message = "102")
         @NotEmpty(message = "102")
+        @ValidIsbn(message = "104")
         String isbn,
         
         @NotNull(message = "103")
         @NotEmpty(message = "103")
         String synopsis,
         
-        boolean shareable
+        boolean shareable,
+        
+        // Defaults to a single copy
+        @Positive(message = "105")
+        Integer copies
 ) {
 }
@@ -1,5 +1,7 @@
 package com.piti.java.librarymanagement.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -11,6 +13,7 @@ import lombok.Setter;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@JsonFilter(BookFields.FILTER)
 public class BookResponse {
 
     private Integer id;
@@ -19,9 +22,13 @@ public class BookResponse {
     private String isbn;
     private String synopsis;
     private String owner;
-    private byte[] cover;
+    private String coverUrl;
     private double rate;
     private boolean archived;
     private boolean shareable;
+    private int copies;
+    private int availableCopies;
+    // At least one copy left at the time of the response
+    private boolean available;
 
 }
@@ -0,0 +1,21 @@
+package com.piti.java.librarymanagement.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkOperationResponse {
+    private List<Integer> succeededIds;
+    // Book id to the reason the single-book endpoint would have given
+    private Map<Integer, String> failures;
+}
@@ -0,0 +1,13 @@
+package com.piti.java.librarymanagement.dto;
+
+/**
+ * How a paged listing computes {@link PageResponse#getTotalElements()}.
+ */
+public enum CountMode {
+	/** Runs a COUNT query alongside the page query. */
+	EXACT,
+	/** Skips the count; totals are reported as -1 and only {@code last} is reliable. */
+	NONE,
+	/** Uses a cached total refreshed in the background and flags the page as approximate. */
+	APPROXIMATE
+}
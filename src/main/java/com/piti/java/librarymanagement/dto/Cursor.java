@@ -0,0 +1,42 @@
+package com.piti.java.librarymanagement.dto;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.piti.java.librarymanagement.exception.OperationNotPermittedException;
+
+/**
+ * Position in a listing ordered by {@code (createdDate, id)} descending. Clients only
+ * ever see the encoded form, so the key layout can change without breaking them.
+ */
+public record Cursor(LocalDateTime createdDate, Integer id) {
+	public static final Cursor FIRST = new Cursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Integer.MAX_VALUE);
+
+	private static final String SEPARATOR = "_";
+
+	public static Cursor decode(String cursor) {
+		if (StringUtils.isBlank(cursor)) {
+			return FIRST;
+		}
+		try {
+			String decoded = new String(Base64.getUrlDecoder().decode(cursor), UTF_8);
+			int separatorIndex = decoded.lastIndexOf(SEPARATOR);
+			return new Cursor(
+					LocalDateTime.parse(decoded.substring(0, separatorIndex)),
+					Integer.valueOf(decoded.substring(separatorIndex + 1)));
+		} catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+			throw new OperationNotPermittedException("The provided cursor is not valid");
+		}
+	}
+
+	public String encode() {
+		return Base64.getUrlEncoder()
+				.withoutPadding()
+				.encodeToString((createdDate + SEPARATOR + id).getBytes(UTF_8));
+	}
+}
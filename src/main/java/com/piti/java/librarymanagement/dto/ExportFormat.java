@@ -0,0 +1,6 @@
+package com.piti.java.librarymanagement.dto;
+
+public enum ExportFormat {
+	NDJSON,
+	CSV
+}
@@ -0,0 +1,8 @@
+package com.piti.java.librarymanagement.dto;
+
+public enum ExportScope {
+	/** Every book that is shareable and not archived. */
+	CATALOG,
+	/** Every book owned by the connected user. */
+	OWNER
+}
@@ -21,4 +21,10 @@ public class PageResponse<T> {
     private int totalPages;
     private boolean first;
     private boolean last;
+    private boolean approximate;
+
+    public PageResponse(List<T> content, int number, int size, long totalElements, int totalPages,
+                        boolean first, boolean last) {
+        this(content, number, size, totalElements, totalPages, first, last, false);
+    }
 }
\ No newline at end of file
@@ -8,12 +8,14 @@ import com.piti.java.librarymanagement.exception.ActivationTokenException;
 import com.piti.java.librarymanagement.exception.OperationNotPermittedException;
 
 import jakarta.mail.MessagingException;
+import jakarta.persistence.EntityNotFoundException;
 
 import static com.piti.java.librarymanagement.exception.handler.BusinessErrorCodes.ACCOUNT_DISABLED;
 import static com.piti.java.librarymanagement.exception.handler.BusinessErrorCodes.ACCOUNT_LOCKED;
 import static com.piti.java.librarymanagement.exception.handler.BusinessErrorCodes.BAD_CREDENTIALS;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.HttpStatus.UNAUTHORIZED;
 
 import java.util.HashSet;
@@ -99,6 +101,17 @@ public class GlobalExceptionHandler {
                 );
     }
 
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ResponseEntity<ExceptionResponse> handleException(EntityNotFoundException exp) {
+        return ResponseEntity
+                .status(NOT_FOUND)
+                .body(
+                        ExceptionResponse.builder()
+                                .error(exp.getMessage())
+                                .build()
+                );
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ExceptionResponse> handleMethodArgumentNotValidException(MethodArgumentNotValidException exp) {
         Set<String> errors = new HashSet<>();
@@ -0,0 +1,12 @@
+package com.piti.java.librarymanagement.file;
+
+import java.nio.file.Path;
+
+/**
+ * A cover to stream, with whether it may be stored by shared caches (only covers of
+ * books displayed in the catalog are, the others are only served to their owner) and
+ * whether it is the requested size rather than the original standing in for a missing
+ * thumbnail.
+ */
+public record CoverFile(Path path, boolean shared, boolean requestedSize) {
+}
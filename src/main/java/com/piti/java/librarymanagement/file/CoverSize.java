@@ -0,0 +1,16 @@
+package com.piti.java.librarymanagement.file;
+
+import lombok.Getter;
+
+@Getter
+public enum CoverSize {
+	LIST(160),
+	DETAIL(480),
+	ORIGINAL(0);
+
+	private final int maxDimension;
+
+	CoverSize(int maxDimension) {
+		this.maxDimension = maxDimension;
+	}
+}
@@ -0,0 +1,70 @@
+package com.piti.java.librarymanagement.file;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static org.springframework.http.HttpHeaders.CACHE_CONTROL;
+import static org.springframework.http.MediaType.APPLICATION_OCTET_STREAM;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@Slf4j
+public class FileStreamingService {
+	private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+	/**
+	 * Streams a file with conditional GET support. Uploaded files are never rewritten
+	 * in place (a new upload gets a new name), so size and modification time are
+	 * enough to derive a strong validator without hashing the content.
+	 */
+	public void streamFile(Path file, CacheControl cacheControl, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		ServletWebRequest webRequest = new ServletWebRequest(request, response);
+		BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		long size = attributes.size();
+		long lastModified = attributes.lastModifiedTime().toMillis();
+		String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+
+		response.setHeader(CACHE_CONTROL, cacheControl.getHeaderValue());
+		if (webRequest.checkNotModified(etag, lastModified)) {
+			return;
+		}
+
+		response.setContentType(MediaTypeFactory.getMediaType(file.getFileName().toString())
+				.orElse(APPLICATION_OCTET_STREAM)
+				.toString());
+		response.setContentLengthLong(size);
+
+		if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+			// Let the connector hand the file to the kernel once the request completes
+			request.setAttribute(SENDFILE_FILENAME, file.toRealPath().toString());
+			request.setAttribute(SENDFILE_START, 0L);
+			request.setAttribute(SENDFILE_END, size);
+			return;
+		}
+
+		try (FileChannel channel = FileChannel.open(file, READ)) {
+			WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+			long position = 0;
+			while (position < size) {
+				position += channel.transferTo(position, size - position, target);
+			}
+		}
+	}
+}
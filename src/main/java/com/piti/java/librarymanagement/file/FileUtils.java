@@ -1,26 +0,0 @@
-package com.piti.java.librarymanagement.file;
-
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-
-import org.apache.commons.lang3.StringUtils;
-
-import lombok.extern.slf4j.Slf4j;
-
-@Slf4j
-public class FileUtils {
-	public static byte[] readFileFromLocation(String fileUrl) {
-        if (StringUtils.isBlank(fileUrl)) {
-            return null;
-        }
-        try {
-            Path filePath = new File(fileUrl).toPath();
-            return Files.readAllBytes(filePath);
-        } catch (IOException e) {
-            log.warn("Nou file found in the path {}", fileUrl);
-        }
-        return null;
-    }
-}
@@ -0,0 +1,138 @@
+package com.piti.java.librarymanagement.file;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@Slf4j
+public class ThumbnailService {
+	private static final String THUMBNAIL_FORMAT = "jpg";
+
+	private final ThreadPoolExecutor executor;
+
+	public ThumbnailService(
+			@Value("${application.file.thumbnails.workers:2}") int workers,
+			@Value("${application.file.thumbnails.queue-capacity:100}") int queueCapacity) {
+		this.executor = new ThreadPoolExecutor(
+				workers, workers,
+				0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity),
+				new CustomizableThreadFactory("thumbnail-"),
+				(task, pool) -> log.warn("Thumbnail queue is full, covers will be served in their original size"));
+	}
+
+	/**
+	 * Queues the generation of every thumbnail size for an uploaded cover. Until a
+	 * thumbnail exists, {@link #resolve(String, CoverSize)} falls back to the original.
+	 */
+	public void generateThumbnails(@Nonnull String originalLocation) {
+		executor.execute(() -> {
+			try {
+				writeThumbnails(Path.of(originalLocation));
+			} catch (IOException | RuntimeException e) {
+				log.error("Thumbnails were not generated for {}", originalLocation, e);
+			}
+		});
+	}
+
+	/**
+	 * Writes the thumbnails of a cover that has none yet, in the calling thread so a backfill
+	 * cannot overflow the upload queue. Returns whether thumbnails were written.
+	 */
+	public boolean writeMissingThumbnails(@Nonnull String originalLocation) {
+		Path original = Path.of(originalLocation);
+		boolean missing = Arrays.stream(CoverSize.values())
+				.anyMatch(size -> size != CoverSize.ORIGINAL && !Files.isReadable(thumbnailPath(original, size)));
+		if (!missing || !Files.isReadable(original)) {
+			return false;
+		}
+		try {
+			return writeThumbnails(original);
+		} catch (IOException | RuntimeException e) {
+			log.error("Thumbnails were not generated for {}", originalLocation, e);
+			return false;
+		}
+	}
+
+	public Path resolve(@Nonnull String originalLocation, @Nonnull CoverSize size) {
+		Path original = Path.of(originalLocation);
+		if (size == CoverSize.ORIGINAL) {
+			return original;
+		}
+		Path thumbnail = thumbnailPath(original, size);
+		return Files.isReadable(thumbnail) ? thumbnail : original;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	private boolean writeThumbnails(Path original) throws IOException {
+		BufferedImage source = ImageIO.read(original.toFile());
+		if (source == null) {
+			log.warn("Unsupported image format, no thumbnails for {}", original);
+			return false;
+		}
+		for (CoverSize size : CoverSize.values()) {
+			if (size == CoverSize.ORIGINAL) {
+				continue;
+			}
+			double scale = Math.min(1.0,
+					(double) size.getMaxDimension() / Math.max(source.getWidth(), source.getHeight()));
+			int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+			int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+			BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			Graphics2D graphics = thumbnail.createGraphics();
+			try {
+				graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+				graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+			} finally {
+				graphics.dispose();
+			}
+
+			// Write next to the target and move it in place so readers never see a partial file
+			Path target = thumbnailPath(original, size);
+			Path temporary = Files.createTempFile(target.getParent(), "thumbnail-", ".tmp");
+			try {
+				ImageIO.write(thumbnail, THUMBNAIL_FORMAT, temporary.toFile());
+				Files.move(temporary, target, REPLACE_EXISTING, ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(temporary);
+			}
+			log.info("Thumbnail saved to: {}", target);
+		}
+		return true;
+	}
+
+	private Path thumbnailPath(Path original, CoverSize size) {
+		String fileName = original.getFileName().toString();
+		int lastDotIndex = fileName.lastIndexOf(".");
+		String baseName = lastDotIndex == -1 ? fileName : fileName.substring(0, lastDotIndex);
+		return original.resolveSibling(baseName + "_" + size.name().toLowerCase() + "." + THUMBNAIL_FORMAT);
+	}
+}
@@ -0,0 +1,99 @@
+package com.piti.java.librarymanagement.index;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing int to int map with linear probing. Avoids the boxing and
+ * per-entry objects of a {@code HashMap<Integer, Integer>} in the in-memory indexes.
+ * Not thread-safe; callers guard it.
+ */
+class IntIntHashMap {
+	private static final int FREE_KEY = Integer.MIN_VALUE;
+	private static final float LOAD_FACTOR = 0.6f;
+
+	private int[] keys;
+	private int[] values;
+	private int size;
+	private int resizeThreshold;
+
+	IntIntHashMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+		allocate(capacity);
+	}
+
+	int get(int key, int defaultValue) {
+		int mask = keys.length - 1;
+		for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+			int current = keys[slot];
+			if (current == FREE_KEY) {
+				return defaultValue;
+			}
+			if (current == key) {
+				return values[slot];
+			}
+		}
+	}
+
+	void put(int key, int value) {
+		int mask = keys.length - 1;
+		for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+			int current = keys[slot];
+			if (current == FREE_KEY) {
+				keys[slot] = key;
+				values[slot] = value;
+				if (++size > resizeThreshold) {
+					rehash(keys.length << 1);
+				}
+				return;
+			}
+			if (current == key) {
+				values[slot] = value;
+				return;
+			}
+		}
+	}
+
+	void increment(int key) {
+		put(key, get(key, 0) + 1);
+	}
+
+	int size() {
+		return size;
+	}
+
+	interface Consumer {
+		void accept(int key, int value);
+	}
+
+	void forEach(Consumer consumer) {
+		for (int slot = 0; slot < keys.length; slot++) {
+			if (keys[slot] != FREE_KEY) {
+				consumer.accept(keys[slot], values[slot]);
+			}
+		}
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(capacity);
+		size = 0;
+		for (int slot = 0; slot < oldKeys.length; slot++) {
+			if (oldKeys[slot] != FREE_KEY) {
+				put(oldKeys[slot], oldValues[slot]);
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new int[capacity];
+		Arrays.fill(keys, FREE_KEY);
+		resizeThreshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private static int mix(int key) {
+		int hash = key * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,237 @@
+package com.piti.java.librarymanagement.index;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory map from packed ISBN-13 ({@code long}) to the ids of the books carrying
+ * it. Keys live in an open-addressing {@code long[]} table whose slots point at a
+ * chain of entries in parallel {@code int[]} arrays, so lookups allocate nothing.
+ * Books put while a rebuild is in progress are mirrored into the fresh index, so the
+ * swap cannot lose them.
+ */
+@Component
+public class IsbnIndex {
+	private static final long FREE_KEY = 0L;
+	private static final int NO_ENTRY = -1;
+	private static final float LOAD_FACTOR = 0.6f;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private long[] keys;
+	private int[] heads;
+	private int keyCount;
+	private long[] entryKeys;
+	private int[] entryBooks;
+	private int[] entryNext;
+	private int entryCount;
+	private IntIntHashMap bookEntries;
+	// Fresh index being filled from a snapshot of the books, live writes are mirrored into it
+	private IsbnIndex rebuilding;
+	// Books of a fresh index written live during the rebuild, their snapshot rows may be older
+	private IntIntHashMap liveBooks;
+
+	public IsbnIndex() {
+		reset();
+	}
+
+	/**
+	 * Associates a book with an ISBN, replacing whatever ISBN it had before.
+	 */
+	public void put(int bookId, long isbn) {
+		lock.writeLock().lock();
+		try {
+			link(bookId, isbn);
+			if (rebuilding != null) {
+				rebuilding.putLive(bookId, isbn);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns a fresh index to fill with {@link #putSnapshot}. Until {@link #replaceWith}
+	 * or {@link #cancelRebuild}, every {@link #put} call is applied to it as well.
+	 */
+	public IsbnIndex startRebuild() {
+		lock.writeLock().lock();
+		try {
+			rebuilding = new IsbnIndex();
+			rebuilding.liveBooks = new IntIntHashMap(64);
+			return rebuilding;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Puts a book read for a rebuild, unless it was put live since the rebuild started.
+	 */
+	public void putSnapshot(int bookId, long isbn) {
+		lock.writeLock().lock();
+		try {
+			if (liveBooks.get(bookId, 0) == 0) {
+				link(bookId, isbn);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void cancelRebuild() {
+		lock.writeLock().lock();
+		try {
+			rebuilding = null;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public int[] find(long isbn) {
+		lock.readLock().lock();
+		try {
+			int slot = slotOf(isbn);
+			if (keys[slot] == FREE_KEY) {
+				return new int[0];
+			}
+			int count = 0;
+			for (int entry = heads[slot]; entry != NO_ENTRY; entry = entryNext[entry]) {
+				count++;
+			}
+			int[] bookIds = new int[count];
+			int index = 0;
+			for (int entry = heads[slot]; entry != NO_ENTRY; entry = entryNext[entry]) {
+				bookIds[index++] = entryBooks[entry];
+			}
+			return bookIds;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public boolean contains(long isbn) {
+		lock.readLock().lock();
+		try {
+			int slot = slotOf(isbn);
+			return keys[slot] != FREE_KEY && heads[slot] != NO_ENTRY;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Always locks the live index before the rebuilt one, like put does
+	public void replaceWith(IsbnIndex rebuilt) {
+		lock.writeLock().lock();
+		rebuilt.lock.readLock().lock();
+		try {
+			keys = rebuilt.keys;
+			heads = rebuilt.heads;
+			keyCount = rebuilt.keyCount;
+			entryKeys = rebuilt.entryKeys;
+			entryBooks = rebuilt.entryBooks;
+			entryNext = rebuilt.entryNext;
+			entryCount = rebuilt.entryCount;
+			bookEntries = rebuilt.bookEntries;
+			rebuilding = null;
+		} finally {
+			rebuilt.lock.readLock().unlock();
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void putLive(int bookId, long isbn) {
+		lock.writeLock().lock();
+		try {
+			liveBooks.put(bookId, 1);
+			link(bookId, isbn);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void link(int bookId, long isbn) {
+		int previous = bookEntries.get(bookId, NO_ENTRY);
+		if (previous != NO_ENTRY) {
+			if (entryKeys[previous] == isbn) {
+				return;
+			}
+			unlink(previous);
+		}
+		int entry = entryCount++;
+		if (entry == entryBooks.length) {
+			entryKeys = Arrays.copyOf(entryKeys, entry * 2);
+			entryBooks = Arrays.copyOf(entryBooks, entry * 2);
+			entryNext = Arrays.copyOf(entryNext, entry * 2);
+		}
+		int slot = slotOf(isbn);
+		if (keys[slot] == FREE_KEY) {
+			keys[slot] = isbn;
+			heads[slot] = NO_ENTRY;
+			keyCount++;
+		}
+		entryKeys[entry] = isbn;
+		entryBooks[entry] = bookId;
+		entryNext[entry] = heads[slot];
+		heads[slot] = entry;
+		bookEntries.put(bookId, entry);
+		if (keyCount > keys.length * LOAD_FACTOR) {
+			rehash();
+		}
+	}
+
+	// Emptied keys stay in the table with no entries, which keeps probing chains intact
+	private void unlink(int entry) {
+		int slot = slotOf(entryKeys[entry]);
+		if (heads[slot] == entry) {
+			heads[slot] = entryNext[entry];
+			return;
+		}
+		for (int current = heads[slot]; current != NO_ENTRY; current = entryNext[current]) {
+			if (entryNext[current] == entry) {
+				entryNext[current] = entryNext[entry];
+				return;
+			}
+		}
+	}
+
+	// Returns the slot holding the key, or the free slot where it would be inserted
+	private int slotOf(long isbn) {
+		int mask = keys.length - 1;
+		int slot = (int) (isbn ^ (isbn >>> 32)) * 0x9E3779B9;
+		for (slot = (slot ^ (slot >>> 16)) & mask; ; slot = (slot + 1) & mask) {
+			if (keys[slot] == FREE_KEY || keys[slot] == isbn) {
+				return slot;
+			}
+		}
+	}
+
+	private void rehash() {
+		long[] oldKeys = keys;
+		int[] oldHeads = heads;
+		keys = new long[oldKeys.length * 2];
+		heads = new int[oldKeys.length * 2];
+		keyCount = 0;
+		for (int slot = 0; slot < oldKeys.length; slot++) {
+			if (oldKeys[slot] != FREE_KEY && oldHeads[slot] != NO_ENTRY) {
+				int newSlot = slotOf(oldKeys[slot]);
+				keys[newSlot] = oldKeys[slot];
+				heads[newSlot] = oldHeads[slot];
+				keyCount++;
+			}
+		}
+	}
+
+	private void reset() {
+		keys = new long[1024];
+		heads = new int[1024];
+		keyCount = 0;
+		entryKeys = new long[1024];
+		entryBooks = new int[1024];
+		entryNext = new int[1024];
+		entryCount = 0;
+		bookEntries = new IntIntHashMap(1024);
+	}
+}
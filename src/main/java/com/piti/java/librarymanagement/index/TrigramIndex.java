@@ -0,0 +1,312 @@
+package com.piti.java.librarymanagement.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory trigram index over normalized book titles and author names. A field
+ * matches when it contains at least half of the query trigrams, which tolerates
+ * typos inside a longer title or full author name, and matches are ranked by that
+ * coverage plus the pg_trgm style similarity (shared trigrams over the union) so
+ * closer overall strings come first.
+ *
+ * <p>Normalized text only keeps {@code [a-z0-9 ]}, so every trigram fits in a dense
+ * array slot and posting lists are plain {@code int[]} of document ordinals. A
+ * document is one field of one book; re-indexing a book tombstones its previous
+ * documents, and rebuilding into a fresh index then calling {@link #replaceWith}
+ * compacts them away. Books indexed while a rebuild is in progress are mirrored into
+ * the fresh index, so the swap cannot lose them.
+ *
+ * <p>Posting lists are kept in ascending document order. A search walks only the lists
+ * of the rarest query trigrams, enough of them that any match must appear in one, and
+ * then binary searches the common trigrams for those candidates alone. The padding and
+ * frequent word trigrams found in most titles therefore cost a lookup per candidate
+ * rather than a scan of the corpus.
+ */
+@Component
+public class TrigramIndex {
+	private static final int ALPHABET = 37;
+	private static final int TRIGRAMS = ALPHABET * ALPHABET * ALPHABET;
+	private static final int FIELDS = 2;
+	private static final int TITLE = 0;
+	private static final int AUTHOR = 1;
+	private static final float MIN_QUERY_COVERAGE = 0.5f;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private int[][] postings;
+	private int[] postingSizes;
+	private int[] documentBooks;
+	private short[] documentTrigramCounts;
+	private int documentCount;
+	private IntIntHashMap currentDocuments;
+	// Fresh index being filled from a snapshot of the books, live writes are mirrored into it
+	private TrigramIndex rebuilding;
+	// Books of a fresh index written live during the rebuild, their snapshot rows may be older
+	private IntIntHashMap liveBooks;
+
+	public TrigramIndex() {
+		reset();
+	}
+
+	public void index(Integer bookId, String title, String authorName) {
+		int[] titleTrigrams = trigrams(title);
+		int[] authorTrigrams = trigrams(authorName);
+		lock.writeLock().lock();
+		try {
+			addDocument(bookId, TITLE, titleTrigrams);
+			addDocument(bookId, AUTHOR, authorTrigrams);
+			if (rebuilding != null) {
+				rebuilding.indexLive(bookId, titleTrigrams, authorTrigrams);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns a fresh index to fill with {@link #indexSnapshot}. Until {@link #replaceWith}
+	 * or {@link #cancelRebuild}, every {@link #index} call is applied to it as well.
+	 */
+	public TrigramIndex startRebuild() {
+		lock.writeLock().lock();
+		try {
+			rebuilding = new TrigramIndex();
+			rebuilding.liveBooks = new IntIntHashMap(64);
+			return rebuilding;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Indexes a book read for a rebuild, unless it was indexed live since the rebuild started.
+	 */
+	public void indexSnapshot(Integer bookId, String title, String authorName) {
+		int[] titleTrigrams = trigrams(title);
+		int[] authorTrigrams = trigrams(authorName);
+		lock.writeLock().lock();
+		try {
+			if (liveBooks.get(bookId, 0) == 0) {
+				addDocument(bookId, TITLE, titleTrigrams);
+				addDocument(bookId, AUTHOR, authorTrigrams);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void cancelRebuild() {
+		lock.writeLock().lock();
+		try {
+			rebuilding = null;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// Always locks the live index before the rebuilt one, like index does
+	public void replaceWith(TrigramIndex rebuilt) {
+		lock.writeLock().lock();
+		rebuilt.lock.readLock().lock();
+		try {
+			postings = rebuilt.postings;
+			postingSizes = rebuilt.postingSizes;
+			documentBooks = rebuilt.documentBooks;
+			documentTrigramCounts = rebuilt.documentTrigramCounts;
+			documentCount = rebuilt.documentCount;
+			currentDocuments = rebuilt.currentDocuments;
+			rebuilding = null;
+		} finally {
+			rebuilt.lock.readLock().unlock();
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns up to {@code limit} book ids whose title or author matches the query,
+	 * best match first.
+	 */
+	public List<Integer> search(String query, int limit) {
+		return search(query, limit, new LongAdder());
+	}
+
+	// Also adds to postingsRead the posting entries walked plus the binary search steps taken
+	List<Integer> search(String query, int limit, LongAdder postingsRead) {
+		int[] queryTrigrams = trigrams(query);
+		if (queryTrigrams.length == 0) {
+			return List.of();
+		}
+		int required = (int) Math.ceil(queryTrigrams.length * MIN_QUERY_COVERAGE);
+		IntIntHashMap sharedByDocument = new IntIntHashMap(256);
+		IntIntHashMap bestByBook = new IntIntHashMap(64);
+		lock.readLock().lock();
+		try {
+			int[] rarestFirst = rarestFirst(queryTrigrams);
+			// A field lacking all of these trigrams shares fewer than required with the query
+			int walked = queryTrigrams.length - required + 1;
+			for (int t = 0; t < walked; t++) {
+				int trigram = rarestFirst[t];
+				int[] list = postings[trigram];
+				for (int i = 0; i < postingSizes[trigram]; i++) {
+					if (documentBooks[list[i]] >= 0) {
+						sharedByDocument.increment(list[i]);
+					}
+				}
+				postingsRead.add(postingSizes[trigram]);
+			}
+			sharedByDocument.forEach((document, walkedShared) -> {
+				int shared = walkedShared;
+				// Probing stops as soon as the remaining trigrams cannot lift the field to the threshold
+				for (int t = walked; t < rarestFirst.length && shared + rarestFirst.length - t >= required; t++) {
+					int trigram = rarestFirst[t];
+					int size = postingSizes[trigram];
+					postingsRead.add(32 - Integer.numberOfLeadingZeros(size));
+					if (size > 0 && Arrays.binarySearch(postings[trigram], 0, size, document) >= 0) {
+						shared++;
+					}
+				}
+				if (shared < required) {
+					return;
+				}
+				int bookId = documentBooks[document];
+				float coverage = (float) shared / queryTrigrams.length;
+				float similarity = (float) shared / (queryTrigrams.length + documentTrigramCounts[document] - shared);
+				int encoded = Float.floatToIntBits(coverage + similarity);
+				if (encoded > bestByBook.get(bookId, 0)) {
+					bestByBook.put(bookId, encoded);
+				}
+			});
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		// Positive floats keep their order when compared through their bit patterns
+		List<int[]> matches = new ArrayList<>(bestByBook.size());
+		bestByBook.forEach((bookId, encoded) -> matches.add(new int[] { bookId, encoded }));
+		return matches.stream()
+				.sorted(Comparator.<int[]>comparingInt(match -> match[1]).reversed()
+						.thenComparing(match -> match[0], Comparator.reverseOrder()))
+				.limit(limit)
+				.map(match -> match[0])
+				.toList();
+	}
+
+	private int[] rarestFirst(int[] trigrams) {
+		long[] bySize = new long[trigrams.length];
+		for (int i = 0; i < trigrams.length; i++) {
+			bySize[i] = (long) postingSizes[trigrams[i]] << 32 | trigrams[i];
+		}
+		Arrays.sort(bySize);
+		int[] ordered = new int[trigrams.length];
+		for (int i = 0; i < trigrams.length; i++) {
+			ordered[i] = (int) bySize[i];
+		}
+		return ordered;
+	}
+
+	private void indexLive(int bookId, int[] titleTrigrams, int[] authorTrigrams) {
+		lock.writeLock().lock();
+		try {
+			liveBooks.put(bookId, 1);
+			addDocument(bookId, TITLE, titleTrigrams);
+			addDocument(bookId, AUTHOR, authorTrigrams);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void addDocument(int bookId, int field, int[] trigrams) {
+		int key = bookId * FIELDS + field;
+		int previous = currentDocuments.get(key, -1);
+		if (previous >= 0) {
+			documentBooks[previous] = -1;
+		}
+		if (trigrams.length == 0) {
+			currentDocuments.put(key, -1);
+			return;
+		}
+		int document = documentCount++;
+		if (document == documentBooks.length) {
+			documentBooks = Arrays.copyOf(documentBooks, document * 2);
+			documentTrigramCounts = Arrays.copyOf(documentTrigramCounts, document * 2);
+		}
+		documentBooks[document] = bookId;
+		documentTrigramCounts[document] = (short) Math.min(trigrams.length, Short.MAX_VALUE);
+		currentDocuments.put(key, document);
+		for (int trigram : trigrams) {
+			int[] list = postings[trigram];
+			int size = postingSizes[trigram];
+			if (list == null) {
+				list = new int[4];
+				postings[trigram] = list;
+			} else if (size == list.length) {
+				list = Arrays.copyOf(list, size + (size >> 1) + 1);
+				postings[trigram] = list;
+			}
+			list[size] = document;
+			postingSizes[trigram] = size + 1;
+		}
+	}
+
+	private void reset() {
+		postings = new int[TRIGRAMS][];
+		postingSizes = new int[TRIGRAMS];
+		documentBooks = new int[1024];
+		documentTrigramCounts = new short[1024];
+		documentCount = 0;
+		currentDocuments = new IntIntHashMap(1024);
+	}
+
+	/**
+	 * Distinct trigrams of the normalized text, each word padded like pg_trgm does
+	 * (two spaces before, one after).
+	 */
+	static int[] trigrams(String text) {
+		if (text == null || text.isBlank()) {
+			return new int[0];
+		}
+		String normalized = Normalizer.normalize(text, Normalizer.Form.NFD).toLowerCase();
+		int[] result = new int[16];
+		int count = 0;
+		for (String word : normalized.split("[^a-z0-9\\p{M}]+")) {
+			String letters = word.replaceAll("\\p{M}", "");
+			if (letters.isEmpty()) {
+				continue;
+			}
+			String padded = "  " + letters + " ";
+			for (int i = 0; i + 3 <= padded.length(); i++) {
+				if (count == result.length) {
+					result = Arrays.copyOf(result, count * 2);
+				}
+				result[count++] = (symbol(padded.charAt(i)) * ALPHABET + symbol(padded.charAt(i + 1))) * ALPHABET
+						+ symbol(padded.charAt(i + 2));
+			}
+		}
+		Arrays.sort(result, 0, count);
+		int distinct = 0;
+		for (int i = 0; i < count; i++) {
+			if (distinct == 0 || result[distinct - 1] != result[i]) {
+				result[distinct++] = result[i];
+			}
+		}
+		return Arrays.copyOf(result, distinct);
+	}
+
+	private static int symbol(char character) {
+		if (character >= 'a' && character <= 'z') {
+			return character - 'a' + 1;
+		}
+		if (character >= '0' && character <= '9') {
+			return character - '0' + 27;
+		}
+		return 0;
+	}
+}
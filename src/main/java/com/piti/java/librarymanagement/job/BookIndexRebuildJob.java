@@ -0,0 +1,65 @@
+package com.piti.java.librarymanagement.job;
+
+import java.util.List;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.piti.java.librarymanagement.index.IsbnIndex;
+import com.piti.java.librarymanagement.index.TrigramIndex;
+import com.piti.java.librarymanagement.repository.BookRepository;
+import com.piti.java.librarymanagement.repository.projection.BookTextView;
+import com.piti.java.librarymanagement.validation.IsbnUtils;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads the in-memory book indexes at startup and rebuilds them periodically to drop
+ * the tombstoned entries left behind by book updates.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class BookIndexRebuildJob {
+	private static final int CHUNK_SIZE = 5000;
+
+	private final BookRepository bookRepository;
+	private final TrigramIndex trigramIndex;
+	private final IsbnIndex isbnIndex;
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(cron = "${application.jobs.book-index-rebuild.cron:0 30 3 * * *}")
+	public void rebuild() {
+		// Books saved while the snapshot is read are mirrored into the fresh indexes and win over it
+		TrigramIndex rebuiltTrigrams = trigramIndex.startRebuild();
+		IsbnIndex rebuiltIsbns = isbnIndex.startRebuild();
+		try {
+			int lastId = 0;
+			int indexed = 0;
+			List<BookTextView> chunk;
+			do {
+				chunk = bookRepository.findTextViewsAfter(lastId, PageRequest.of(0, CHUNK_SIZE));
+				for (BookTextView book : chunk) {
+					rebuiltTrigrams.indexSnapshot(book.id(), book.title(), book.authorName());
+					String isbn = IsbnUtils.normalize(book.isbn());
+					if (isbn != null) {
+						rebuiltIsbns.putSnapshot(book.id(), IsbnUtils.pack(isbn));
+					}
+					lastId = book.id();
+				}
+				indexed += chunk.size();
+			} while (chunk.size() == CHUNK_SIZE);
+			trigramIndex.replaceWith(rebuiltTrigrams);
+			isbnIndex.replaceWith(rebuiltIsbns);
+			log.info("Book indexes rebuilt with {} book(s)", indexed);
+		} finally {
+			// No-op once replaced, stops mirroring into indexes a failed rebuild left behind
+			trigramIndex.cancelRebuild();
+			isbnIndex.cancelRebuild();
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package com.piti.java.librarymanagement.job;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.piti.java.librarymanagement.repository.BookRepository;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rebuilds the stored rating aggregate of every book from the feedbacks table,
+ * repairing any drift left by failed or manual writes.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class BookRatingReconciliationJob {
+	private final BookRepository bookRepository;
+
+	@Scheduled(cron = "${application.jobs.rating-reconciliation.cron:0 0 3 * * *}")
+	@Transactional
+	public void reconcile() {
+		int updated = bookRepository.reconcileRatings();
+		if (updated > 0) {
+			log.warn("Rating aggregate reconciled for {} book(s)", updated);
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package com.piti.java.librarymanagement.job;
+
+import java.util.List;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.piti.java.librarymanagement.file.ThumbnailService;
+import com.piti.java.librarymanagement.repository.BookRepository;
+import com.piti.java.librarymanagement.repository.projection.BookCoverView;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Generates the thumbnails missing for existing covers: the ones uploaded before thumbnails
+ * existed and the ones dropped by a full thumbnail queue. Covers that already have their
+ * thumbnails only cost a file check.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ThumbnailBackfillJob {
+	private static final int CHUNK_SIZE = 500;
+
+	private final BookRepository bookRepository;
+	private final ThumbnailService thumbnailService;
+
+	@Async
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(cron = "${application.jobs.thumbnail-backfill.cron:0 0 4 * * *}")
+	public void backfill() {
+		int lastId = 0;
+		int generated = 0;
+		List<BookCoverView> chunk;
+		do {
+			chunk = bookRepository.findCoversAfter(lastId, PageRequest.of(0, CHUNK_SIZE));
+			for (BookCoverView book : chunk) {
+				if (thumbnailService.writeMissingThumbnails(book.bookCover())) {
+					generated++;
+				}
+				lastId = book.id();
+			}
+		} while (chunk.size() == CHUNK_SIZE);
+		if (generated > 0) {
+			log.info("Thumbnails generated for {} existing cover(s)", generated);
+		}
+	}
+}
@@ -1,52 +1,82 @@
 package com.piti.java.librarymanagement.mapper;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.piti.java.librarymanagement.dto.BookRequest;
 import com.piti.java.librarymanagement.dto.BookResponse;
 import com.piti.java.librarymanagement.dto.BorrowedBookResponse;
-import com.piti.java.librarymanagement.file.FileUtils;
+import com.piti.java.librarymanagement.file.CoverSize;
 import com.piti.java.librarymanagement.model.Book;
-import com.piti.java.librarymanagement.model.BookTransactionHistory;
+import com.piti.java.librarymanagement.repository.projection.BookView;
+import com.piti.java.librarymanagement.repository.projection.BorrowedBookView;
+import com.piti.java.librarymanagement.validation.IsbnUtils;
+
+import lombok.RequiredArgsConstructor;
 
 @Service
+@RequiredArgsConstructor
 public class BookMapper {
+	@Value("${server.servlet.context-path:}")
+	private String contextPath;
+	
     public Book toBook(BookRequest request) {
+        int copies = request.copies() == null ? 1 : request.copies();
         return Book.builder()
                 .id(request.id())
                 .title(request.title())
-                .isbn(request.isbn())
+                .isbn(IsbnUtils.normalize(request.isbn()))
                 .authorName(request.authorName())
                 .synopsis(request.synopsis())
                 .archived(false)
                 .shareable(request.shareable())
+                .copies(copies)
+                .availableCopies(copies)
                 .build();
     }
 
-    public BookResponse toBookResponse(Book book) {
+    public BookResponse toBookResponse(BookView book, CoverSize coverSize) {
         return BookResponse.builder()
-                .id(book.getId())
-                .title(book.getTitle())
-                .authorName(book.getAuthorName())
-                .isbn(book.getIsbn())
-                .synopsis(book.getSynopsis())
-                .rate(book.getRate())
-                .archived(book.isArchived())
-                .shareable(book.isShareable())
-                .owner(book.getOwner().fullName())
-                .cover(FileUtils.readFileFromLocation(book.getBookCover()))
+                .id(book.id())
+                .title(book.title())
+                .authorName(book.authorName())
+                .isbn(book.isbn())
+                .synopsis(book.synopsis())
+                .rate(Book.rate(book.ratingSum(), book.ratingCount()))
+                .archived(book.archived())
+                .shareable(book.shareable())
+                .copies(book.copies())
+                .availableCopies(book.availableCopies())
+                .available(book.availableCopies() > 0)
+                .owner(book.ownerFirstname() + " " + book.ownerLastname())
+                .coverUrl(toCoverUrl(book.id(), book.bookCover(), coverSize))
                 .build();
     }
 
-    public BorrowedBookResponse toBorrowedBookResponse(BookTransactionHistory history) {
+    private String toCoverUrl(Integer bookId, String bookCover, CoverSize coverSize) {
+        if (bookCover == null) {
+            return null;
+        }
+        // Every upload gets a new file name, so caches keeping a cover for a day never outlive it
+        String version = URLEncoder.encode(Path.of(bookCover).getFileName().toString(), StandardCharsets.UTF_8);
+        return StringUtils.removeEnd(contextPath, "/") + "/books/" + bookId + "/cover?size=" + coverSize.name()
+                + "&v=" + version;
+    }
+
+    public BorrowedBookResponse toBorrowedBookResponse(BorrowedBookView history) {
         return BorrowedBookResponse.builder()
-                .id(history.getBook().getId())
-                .title(history.getBook().getTitle())
-                .authorName(history.getBook().getAuthorName())
-                .isbn(history.getBook().getIsbn())
-                .rate(history.getBook().getRate())
-                .returned(history.isReturned())
-                .returnApproved(history.isReturnApproved())
+                .id(history.bookId())
+                .title(history.title())
+                .authorName(history.authorName())
+                .isbn(history.isbn())
+                .rate(Book.rate(history.ratingSum(), history.ratingCount()))
+                .returned(history.returned())
+                .returnApproved(history.returnApproved())
                 .build();
     }
 }
@@ -8,6 +8,7 @@ import com.piti.java.librarymanagement.dto.FeedbackRequest;
 import com.piti.java.librarymanagement.dto.FeedbackResponse;
 import com.piti.java.librarymanagement.model.Book;
 import com.piti.java.librarymanagement.model.Feedback;
+import com.piti.java.librarymanagement.repository.projection.FeedbackView;
 
 @Service
 public class FeedbackMapper {
@@ -31,4 +32,12 @@ public class FeedbackMapper {
                 .ownFeedback(Objects.equals(feedback.getCreatedBy(), id))
                 .build();
     }
+
+    public FeedbackResponse toFeedbackResponse(FeedbackView feedback, Integer id) {
+        return FeedbackResponse.builder()
+                .note(feedback.note())
+                .comment(feedback.comment())
+                .ownFeedback(Objects.equals(feedback.createdBy(), id))
+                .build();
+    }
 }
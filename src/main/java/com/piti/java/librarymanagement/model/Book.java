@@ -2,12 +2,16 @@ package com.piti.java.librarymanagement.model;
 
 import java.util.List;
 
+import org.hibernate.annotations.ColumnDefault;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -20,10 +24,11 @@ import lombok.experimental.SuperBuilder;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name ="books")
+@Table(name ="books", uniqueConstraints = @UniqueConstraint(name = "books_owner_isbn_uk", columnNames = {"owner_id", "isbn"}))
 public class Book extends BaseEntity{
 	private String title;
 	private String authorName;
+	// Always stored as a normalized ISBN-13
 	private String isbn;
 	private String synopsis;
 	private String bookCover;
@@ -36,19 +41,33 @@ public class Book extends BaseEntity{
 	private List<Feedback> feedbacks;
 	@OneToMany(mappedBy = "book")
 	private List<BookTransactionHistory> histories;
+	// Rating aggregate maintained by FeedbackServiceImpl and BookRatingReconciliationJob,
+	// never written through the entity so a book update cannot reset it
+	@ColumnDefault("0")
+	@Column(nullable = false, updatable = false)
+	private double ratingSum;
+	@ColumnDefault("0")
+	@Column(nullable = false, updatable = false)
+	private int ratingCount;
+	// Copy counters, only moved by the conditional updates of BookRepository and
+	// BookTransactionHistoryRepository so concurrent borrows cannot oversubscribe a book
+	@ColumnDefault("1")
+	@Column(nullable = false, updatable = false)
+	private int copies;
+	@ColumnDefault("1")
+	@Column(nullable = false, updatable = false)
+	private int availableCopies;
 	
 	@Transient
 	public double getRate() {
-	    if (feedbacks == null || feedbacks.isEmpty()) {
+	    return rate(ratingSum, ratingCount);
+	}
+	
+	public static double rate(double ratingSum, int ratingCount) {
+	    if (ratingCount == 0) {
 	        return 0.0;
 	    }
-	    var rate = this.feedbacks.stream()
-	            .mapToDouble(Feedback::getNote)
-	            .average()
-	            .orElse(0.0);
-	    double roundedRate = Math.round(rate * 10.0) / 10.0;
-	
-	    // Return 4.0 if roundedRate is less than 4.5, otherwise return 4.5
-	    return roundedRate;
+	    var rate = ratingSum / ratingCount;
+	    return Math.round(rate * 10.0) / 10.0;
 	}
 }
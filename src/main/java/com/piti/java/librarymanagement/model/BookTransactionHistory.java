@@ -1,5 +1,6 @@
 package com.piti.java.librarymanagement.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -24,6 +25,9 @@ public class BookTransactionHistory extends BaseEntity{
     @ManyToOne
     @JoinColumn(name = "book_id")
     private Book book;
+    // Copy of book.owner.id so the owner's views do not have to join books
+    @Column(name = "owner_id")
+    private Integer ownerId;
     private boolean returned;
     private boolean returnApproved;
 }
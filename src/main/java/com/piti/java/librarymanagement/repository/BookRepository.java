@@ -1,20 +1,478 @@
 package com.piti.java.librarymanagement.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.piti.java.librarymanagement.model.Book;
+import com.piti.java.librarymanagement.repository.projection.BookCoverView;
+import com.piti.java.librarymanagement.repository.projection.BookStatusView;
+import com.piti.java.librarymanagement.repository.projection.BookTextView;
+import com.piti.java.librarymanagement.repository.projection.BookView;
+import com.piti.java.librarymanagement.repository.projection.RowVersion;
+
+import jakarta.persistence.QueryHint;
 
 public interface BookRepository extends JpaRepository<Book, Integer>, JpaSpecificationExecutor<Book> {
+    @Query(value = """
+            SELECT new com.piti.java.librarymanagement.repository.projection.BookView(
+                    book.id, book.createdDate, book.title, book.authorName, book.isbn,
+                    CASE WHEN :withSynopsis = true THEN book.synopsis END,
+                    owner.firstname, owner.lastname, book.bookCover, book.ratingSum, book.ratingCount,
+                    book.archived, book.shareable, book.copies, book.availableCopies)
+            FROM Book book
+            JOIN book.owner owner
+            WHERE book.archived = false
+            AND book.shareable = true
+            AND owner.id != :userId
+            """,
+            countQuery = """
+            SELECT COUNT(book)
+            FROM Book book
+            WHERE book.archived = false
+            AND book.shareable = true
+            AND book.owner.id != :userId
+            """)
+    Page<BookView> findAllDisplayableBooks(Pageable pageable, Integer userId, boolean withSynopsis);
+    
+    
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.BookView(
+                    book.id, book.createdDate, book.title, book.authorName, book.isbn,
+                    CASE WHEN :withSynopsis = true THEN book.synopsis END,
+                    owner.firstname, owner.lastname, book.bookCover, book.ratingSum, book.ratingCount,
+                    book.archived, book.shareable, book.copies, book.availableCopies)
+            FROM Book book
+            JOIN book.owner owner
+            WHERE book.archived = false
+            AND book.shareable = true
+            AND owner.id != :userId
+            """)
+    Slice<BookView> findDisplayableBooksSlice(Pageable pageable, @Param("userId") Integer userId,
+                                              @Param("withSynopsis") boolean withSynopsis);
+    
+    
     @Query("""
-            SELECT book
+            SELECT COUNT(book)
             FROM Book book
             WHERE book.archived = false
             AND book.shareable = true
             AND book.owner.id != :userId
             """)
-    Page<Book> findAllDisplayableBooks(Pageable pageable, Integer userId);
-}
\ No newline at end of file
+    long countDisplayableBooks(@Param("userId") Integer userId);
+    
+    
+    @Query(value = """
+            SELECT new com.piti.java.librarymanagement.repository.projection.BookView(
+                    book.id, book.createdDate, book.title, book.authorName, book.isbn,
+                    CASE WHEN :withSynopsis = true THEN book.synopsis END,
+                    owner.firstname, owner.lastname, book.bookCover, book.ratingSum, book.ratingCount,
+                    book.archived, book.shareable, book.copies, book.availableCopies)
+            FROM Book book
+            JOIN book.owner owner
+            WHERE owner.id = :ownerId
+            """,
+            countQuery = """
+            SELECT COUNT(book)
+            FROM Book book
+            WHERE book.owner.id = :ownerId
+            """)
+    Page<BookView> findAllOwnerBooks(Pageable pageable, @Param("ownerId") Integer ownerId,
+                                     @Param("withSynopsis") boolean withSynopsis);
+    
+    
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.BookView(
+                    book.id, book.createdDate, book.title, book.authorName, book.isbn,
+                    CASE WHEN :withSynopsis = true THEN book.synopsis END,
+                    owner.firstname, owner.lastname, book.bookCover, book.ratingSum, book.ratingCount,
+                    book.archived, book.shareable, book.copies, book.availableCopies)
+            FROM Book book
+            JOIN book.owner owner
+            WHERE owner.id = :ownerId
+            """)
+    Slice<BookView> findOwnerBooksSlice(Pageable pageable, @Param("ownerId") Integer ownerId,
+                                        @Param("withSynopsis") boolean withSynopsis);
+    
+    
+    long countByOwnerId(Integer ownerId);
+    
+    
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.RowVersion(
+                    book.id, COALESCE(book.lastModifiedDate, book.createdDate),
+                    COALESCE(owner.lastModifiedDate, owner.createdDate))
+            FROM Book book
+            JOIN book.owner owner
+            WHERE book.id = :id
+            """)
+    Optional<RowVersion> findVersionById(@Param("id") Integer id);
+    
+    
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.RowVersion(
+                    book.id, COALESCE(book.lastModifiedDate, book.createdDate),
+                    COALESCE(owner.lastModifiedDate, owner.createdDate))
+            FROM Book book
+            JOIN book.owner owner
+            WHERE book.archived = false
+            AND book.shareable = true
+            AND owner.id != :userId
+            """)
+    Slice<RowVersion> findDisplayableBookVersions(Pageable pageable, @Param("userId") Integer userId);
+    
+    
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.RowVersion(
+                    book.id, COALESCE(book.lastModifiedDate, book.createdDate),
+                    COALESCE(owner.lastModifiedDate, owner.createdDate))
+            FROM Book book
+            JOIN book.owner owner
+            WHERE owner.id = :ownerId
+            """)
+    Slice<RowVersion> findOwnerBookVersions(Pageable pageable, @Param("ownerId") Integer ownerId);
+    
+    
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.BookView(
+                    book.id, book.createdDate, book.title, book.authorName, book.isbn,
+                    CASE WHEN :withSynopsis = true THEN book.synopsis END,
+                    owner.firstname, owner.lastname, book.bookCover, book.ratingSum, book.ratingCount,
+                    book.archived, book.shareable, book.copies, book.availableCopies)
+            FROM Book book
+            JOIN book.owner owner
+            WHERE book.id = :id
+            """)
+    Optional<BookView> findViewById(@Param("id") Integer id, @Param("withSynopsis") boolean withSynopsis);
+    
+    
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.BookView(
+                    book.id, book.createdDate, book.title, book.authorName, book.isbn,
+                    CASE WHEN :withSynopsis = true THEN book.synopsis END,
+                    owner.firstname, owner.lastname, book.bookCover, book.ratingSum, book.ratingCount,
+                    book.archived, book.shareable, book.copies, book.availableCopies)
+            FROM Book book
+            JOIN book.owner owner
+            WHERE book.id IN :ids
+            """)
+    List<BookView> findAllViewsByIds(@Param("ids") Collection<Integer> ids, @Param("withSynopsis") boolean withSynopsis);
+    
+    
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.BookView(
+                    book.id, book.createdDate, book.title, book.authorName, book.isbn,
+                    CASE WHEN :withSynopsis = true THEN book.synopsis END,
+                    owner.firstname, owner.lastname, book.bookCover, book.ratingSum, book.ratingCount,
+                    book.archived, book.shareable, book.copies, book.availableCopies)
+            FROM Book book
+            JOIN book.owner owner
+            WHERE book.archived = false
+            AND book.shareable = true
+            AND owner.id != :userId
+            AND (book.createdDate, book.id) < (:createdDate, :id)
+            ORDER BY book.createdDate DESC, book.id DESC
+            """)
+    List<BookView> findDisplayableBooksAfter(@Param("userId") Integer userId,
+                                             @Param("createdDate") LocalDateTime createdDate,
+                                             @Param("id") Integer id,
+                                             @Param("withSynopsis") boolean withSynopsis,
+                                             Pageable pageable);
+    
+    
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.BookView(
+                    book.id, book.createdDate, book.title, book.authorName, book.isbn,
+                    CASE WHEN :withSynopsis = true THEN book.synopsis END,
+                    owner.firstname, owner.lastname, book.bookCover, book.ratingSum, book.ratingCount,
+                    book.archived, book.shareable, book.copies, book.availableCopies)
+            FROM Book book
+            JOIN book.owner owner
+            WHERE owner.id = :ownerId
+            AND (book.createdDate, book.id) < (:createdDate, :id)
+            ORDER BY book.createdDate DESC, book.id DESC
+            """)
+    List<BookView> findOwnerBooksAfter(@Param("ownerId") Integer ownerId,
+                                       @Param("createdDate") LocalDateTime createdDate,
+                                       @Param("id") Integer id,
+                                       @Param("withSynopsis") boolean withSynopsis,
+                                       Pageable pageable);
+
+    
+    @Query(value = """
+            UPDATE books
+            SET available_copies = available_copies - 1,
+                last_modified_date = LOCALTIMESTAMP
+            WHERE id = :bookId
+            AND available_copies > 0
+            RETURNING available_copies
+            """, nativeQuery = true)
+    Optional<Integer> takeCopy(@Param("bookId") Integer bookId);
+    
+    
+    @Query(value = """
+            UPDATE books
+            SET available_copies = available_copies - 1,
+                last_modified_date = LOCALTIMESTAMP
+            WHERE id IN (:bookIds)
+            AND available_copies > 0
+            RETURNING id
+            """, nativeQuery = true)
+    List<Integer> takeCopies(@Param("bookIds") Collection<Integer> bookIds);
+    
+    
+    // Row lock shared with every counter update, so a returned copy cannot go unseen by a new reservation
+    @Query(value = """
+            SELECT available_copies
+            FROM books
+            WHERE id = :bookId
+            FOR UPDATE
+            """, nativeQuery = true)
+    Optional<Integer> lockAvailableCopies(@Param("bookId") Integer bookId);
+    
+    
+    // Lent copies stay lent: the owner cannot go below them
+    @Query(value = """
+            UPDATE books
+            SET available_copies = available_copies + :copies - copies,
+                copies = :copies,
+                last_modified_date = LOCALTIMESTAMP
+            WHERE id = :bookId
+            AND available_copies + :copies - copies >= 0
+            RETURNING available_copies
+            """, nativeQuery = true)
+    Optional<Integer> updateCopies(@Param("bookId") Integer bookId, @Param("copies") int copies);
+    
+    
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.BookCoverView(
+                    book.id, book.bookCover, book.owner.id, book.archived, book.shareable)
+            FROM Book book
+            WHERE book.id = :id
+            """)
+    Optional<BookCoverView> findCoverById(@Param("id") Integer id);
+    
+    
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.BookCoverView(
+                    book.id, book.bookCover, book.owner.id, book.archived, book.shareable)
+            FROM Book book
+            WHERE book.id > :lastId
+            AND book.bookCover IS NOT NULL
+            ORDER BY book.id
+            """)
+    List<BookCoverView> findCoversAfter(@Param("lastId") Integer lastId, Pageable pageable);
+    
+    
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.BookStatusView(
+                    book.id, book.owner.id, book.archived, book.shareable)
+            FROM Book book
+            WHERE book.id = :id
+            """)
+    Optional<BookStatusView> findStatusById(@Param("id") Integer id);
+    
+    
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.BookStatusView(
+                    book.id, book.owner.id, book.archived, book.shareable)
+            FROM Book book
+            WHERE book.id IN :ids
+            """)
+    List<BookStatusView> findAllStatusesByIds(@Param("ids") Collection<Integer> ids);
+    
+    
+    @Query(value = """
+            UPDATE books
+            SET archived = true,
+                last_modified_date = LOCALTIMESTAMP,
+                last_modified_by = :ownerId
+            WHERE owner_id = :ownerId
+            AND id IN (:ids)
+            RETURNING id
+            """, nativeQuery = true)
+    List<Integer> archiveAll(@Param("ids") Collection<Integer> ids, @Param("ownerId") Integer ownerId);
+    
+    
+    @Query(value = """
+            UPDATE books
+            SET shareable = false,
+                last_modified_date = LOCALTIMESTAMP,
+                last_modified_by = :ownerId
+            WHERE owner_id = :ownerId
+            AND id IN (:ids)
+            RETURNING id
+            """, nativeQuery = true)
+    List<Integer> unshareAll(@Param("ids") Collection<Integer> ids, @Param("ownerId") Integer ownerId);
+    
+    
+    @Modifying
+    @Query("""
+            UPDATE Book book
+            SET book.shareable = CASE WHEN book.shareable = true THEN false ELSE true END,
+                book.lastModifiedDate = LOCAL_DATETIME,
+                book.lastModifiedBy = :ownerId
+            WHERE book.id = :bookId
+            AND book.owner.id = :ownerId
+            """)
+    int toggleShareable(@Param("bookId") Integer bookId, @Param("ownerId") Integer ownerId);
+    
+    
+    @Modifying
+    @Query("""
+            UPDATE Book book
+            SET book.archived = CASE WHEN book.archived = true THEN false ELSE true END,
+                book.lastModifiedDate = LOCAL_DATETIME,
+                book.lastModifiedBy = :ownerId
+            WHERE book.id = :bookId
+            AND book.owner.id = :ownerId
+            """)
+    int toggleArchived(@Param("bookId") Integer bookId, @Param("ownerId") Integer ownerId);
+    
+    
+    @Modifying
+    @Query("""
+            UPDATE Book book
+            SET book.ratingSum = book.ratingSum + :note,
+                book.ratingCount = book.ratingCount + 1,
+                book.lastModifiedDate = LOCAL_DATETIME
+            WHERE book.id = :bookId
+            """)
+    int addRating(@Param("bookId") Integer bookId, @Param("note") double note);
+    
+    
+    @Modifying
+    @Query(value = """
+            UPDATE books book
+            SET rating_sum = aggregate.rating_sum,
+                rating_count = aggregate.rating_count,
+                last_modified_date = LOCALTIMESTAMP
+            FROM (
+                SELECT b.id, COALESCE(SUM(f.note), 0) AS rating_sum, COUNT(f.note) AS rating_count
+                FROM books b
+                LEFT JOIN feedbacks f ON f.book_id = b.id
+                GROUP BY b.id
+            ) aggregate
+            WHERE aggregate.id = book.id
+            AND (book.rating_sum <> aggregate.rating_sum OR book.rating_count <> aggregate.rating_count)
+            """, nativeQuery = true)
+    int reconcileRatings();
+    
+    
+    @Query(value = """
+            SELECT book.id
+            FROM books book
+            WHERE book.search_vector @@ websearch_to_tsquery('english', :query)
+            AND book.archived = false
+            AND book.shareable = true
+            AND book.owner_id <> :userId
+            ORDER BY ts_rank(book.search_vector, websearch_to_tsquery('english', :query)) DESC, book.id DESC
+            """,
+            countQuery = """
+            SELECT COUNT(*)
+            FROM books book
+            WHERE book.search_vector @@ websearch_to_tsquery('english', :query)
+            AND book.archived = false
+            AND book.shareable = true
+            AND book.owner_id <> :userId
+            """,
+            nativeQuery = true)
+    Page<Integer> searchDisplayableBookIds(@Param("query") String query, @Param("userId") Integer userId, Pageable pageable);
+    
+    
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.BookView(
+                    book.id, book.createdDate, book.title, book.authorName, book.isbn,
+                    CASE WHEN :withSynopsis = true THEN book.synopsis END,
+                    owner.firstname, owner.lastname, book.bookCover, book.ratingSum, book.ratingCount,
+                    book.archived, book.shareable, book.copies, book.availableCopies)
+            FROM Book book
+            JOIN book.owner owner
+            WHERE book.id IN :ids
+            AND book.archived = false
+            AND book.shareable = true
+            AND owner.id != :userId
+            """)
+    List<BookView> findAllDisplayableBooksByIds(@Param("ids") List<Integer> ids, @Param("userId") Integer userId,
+                                                @Param("withSynopsis") boolean withSynopsis);
+    
+    
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.BookView(
+                    book.id, book.createdDate, book.title, book.authorName, book.isbn,
+                    CASE WHEN :withSynopsis = true THEN book.synopsis END,
+                    owner.firstname, owner.lastname, book.bookCover, book.ratingSum, book.ratingCount,
+                    book.archived, book.shareable, book.copies, book.availableCopies)
+            FROM Book book
+            JOIN book.owner owner
+            WHERE book.id IN :ids
+            AND (owner.id = :userId OR (book.archived = false AND book.shareable = true))
+            """)
+    List<BookView> findAllVisibleBooksByIds(@Param("ids") List<Integer> ids, @Param("userId") Integer userId,
+                                            @Param("withSynopsis") boolean withSynopsis);
+    
+    
+    boolean existsByIdInAndOwnerId(List<Integer> ids, Integer ownerId);
+    
+    
+    @Query("""
+            SELECT book.isbn
+            FROM Book book
+            WHERE book.owner.id = :ownerId
+            AND book.isbn IN :isbns
+            """)
+    List<String> findOwnedIsbns(@Param("ownerId") Integer ownerId, @Param("isbns") Collection<String> isbns);
+    
+    
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.BookTextView(book.id, book.title, book.authorName, book.isbn)
+            FROM Book book
+            WHERE book.id > :id
+            ORDER BY book.id
+            """)
+    List<BookTextView> findTextViewsAfter(@Param("id") Integer id, Pageable pageable);
+    
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.BookView(
+                    book.id, book.createdDate, book.title, book.authorName, book.isbn,
+                    CASE WHEN :withSynopsis = true THEN book.synopsis END,
+                    owner.firstname, owner.lastname, book.bookCover, book.ratingSum, book.ratingCount,
+                    book.archived, book.shareable, book.copies, book.availableCopies)
+            FROM Book book
+            JOIN book.owner owner
+            WHERE book.archived = false
+            AND book.shareable = true
+            ORDER BY book.id
+            """)
+    Stream<BookView> streamCatalogBooks(@Param("withSynopsis") boolean withSynopsis);
+    
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.BookView(
+                    book.id, book.createdDate, book.title, book.authorName, book.isbn,
+                    CASE WHEN :withSynopsis = true THEN book.synopsis END,
+                    owner.firstname, owner.lastname, book.bookCover, book.ratingSum, book.ratingCount,
+                    book.archived, book.shareable, book.copies, book.availableCopies)
+            FROM Book book
+            JOIN book.owner owner
+            WHERE owner.id = :ownerId
+            ORDER BY book.id
+            """)
+    Stream<BookView> streamOwnerBooks(@Param("ownerId") Integer ownerId, @Param("withSynopsis") boolean withSynopsis);
+}
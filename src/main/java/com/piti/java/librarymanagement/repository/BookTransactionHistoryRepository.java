@@ -1,14 +1,21 @@
 package com.piti.java.librarymanagement.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.piti.java.librarymanagement.model.BookTransactionHistory;
+import com.piti.java.librarymanagement.repository.projection.BorrowedBookView;
+import com.piti.java.librarymanagement.repository.projection.RowVersion;
 
 public interface BookTransactionHistoryRepository extends JpaRepository<BookTransactionHistory, Integer> {
     @Query("""
@@ -23,50 +30,257 @@ public interface BookTransactionHistoryRepository extends JpaRepository<BookTran
     
 
     @Query("""
-            SELECT
-            (COUNT (*) > 0) AS isBorrowed
-            FROM BookTransactionHistory bookTransactionHistory
-            WHERE bookTransactionHistory.book.id = :bookId
-            AND bookTransactionHistory.returnApproved = false
+            SELECT history.book.id
+            FROM BookTransactionHistory history
+            WHERE history.user.id = :userId
+            AND history.book.id IN :bookIds
+            AND history.returnApproved = false
             """)
-    boolean isAlreadyBorrowed(@Param("bookId") Integer bookId);
+    List<Integer> findBorrowedBookIds(@Param("userId") Integer userId, @Param("bookIds") Collection<Integer> bookIds);
     
-
+    
+    // Native for RETURNING: the update and the id of the updated loan in one round trip
+    @Query(value = """
+            UPDATE book_transaction_history history
+            SET returned = true,
+                last_modified_date = LOCALTIMESTAMP,
+                last_modified_by = :userId
+            FROM books book
+            WHERE book.id = history.book_id
+            AND history.book_id = :bookId
+            AND history.user_id = :userId
+            AND history.returned = false
+            AND history.return_approved = false
+            AND book.owner_id <> :userId
+            AND book.archived = false
+            AND book.shareable = true
+            RETURNING history.id
+            """, nativeQuery = true)
+    Optional<Integer> markReturned(@Param("bookId") Integer bookId, @Param("userId") Integer userId);
+    
+    
+    // Approved loans hand their copy back to the book in the same statement
+    // The oldest pending return of the book is approved, one loan per call
+    @Query(value = """
+            WITH approved AS (
+                UPDATE book_transaction_history history
+                SET return_approved = true,
+                    last_modified_date = LOCALTIMESTAMP,
+                    last_modified_by = :ownerId
+                FROM books book
+                WHERE book.id = history.book_id
+                AND history.book_id = :bookId
+                AND history.owner_id = :ownerId
+                AND history.returned = true
+                AND history.return_approved = false
+                AND history.id = (
+                    SELECT MIN(pending.id)
+                    FROM book_transaction_history pending
+                    WHERE pending.book_id = :bookId
+                    AND pending.returned = true
+                    AND pending.return_approved = false
+                )
+                AND book.owner_id = :ownerId
+                AND book.archived = false
+                AND book.shareable = true
+                RETURNING history.id, history.book_id
+            ), restocked AS (
+                UPDATE books
+                SET available_copies = LEAST(copies, available_copies + returns.copies),
+                    last_modified_date = LOCALTIMESTAMP
+                FROM (SELECT book_id, COUNT(*) AS copies FROM approved GROUP BY book_id) returns
+                WHERE books.id = returns.book_id
+            )
+            SELECT approved.id FROM approved
+            """, nativeQuery = true)
+    Optional<Integer> approveReturn(@Param("bookId") Integer bookId, @Param("ownerId") Integer ownerId);
+    
+    
+    @Query(value = """
+            WITH approved AS (
+                UPDATE book_transaction_history history
+                SET return_approved = true,
+                    last_modified_date = LOCALTIMESTAMP,
+                    last_modified_by = :ownerId
+                FROM books book
+                WHERE book.id = history.book_id
+                AND history.owner_id = :ownerId
+                AND history.returned = true
+                AND history.return_approved = false
+                AND book.owner_id = :ownerId
+                AND book.archived = false
+                AND book.shareable = true
+                RETURNING history.id, history.book_id
+            ), restocked AS (
+                UPDATE books
+                SET available_copies = LEAST(copies, available_copies + returns.copies),
+                    last_modified_date = LOCALTIMESTAMP
+                FROM (SELECT book_id, COUNT(*) AS copies FROM approved GROUP BY book_id) returns
+                WHERE books.id = returns.book_id
+            )
+            SELECT approved.book_id FROM approved
+            """, nativeQuery = true)
+    List<Integer> approveAllReturns(@Param("ownerId") Integer ownerId);
+    
+    
+    @Query(value = """
+            WITH approved AS (
+                UPDATE book_transaction_history history
+                SET return_approved = true,
+                    last_modified_date = LOCALTIMESTAMP,
+                    last_modified_by = :ownerId
+                FROM books book
+                WHERE book.id = history.book_id
+                AND history.book_id IN (:bookIds)
+                AND history.owner_id = :ownerId
+                AND history.returned = true
+                AND history.return_approved = false
+                AND book.owner_id = :ownerId
+                AND book.archived = false
+                AND book.shareable = true
+                RETURNING history.id, history.book_id
+            ), restocked AS (
+                UPDATE books
+                SET available_copies = LEAST(copies, available_copies + returns.copies),
+                    last_modified_date = LOCALTIMESTAMP
+                FROM (SELECT book_id, COUNT(*) AS copies FROM approved GROUP BY book_id) returns
+                WHERE books.id = returns.book_id
+            )
+            SELECT approved.book_id FROM approved
+            """, nativeQuery = true)
+    List<Integer> approveReturns(@Param("bookIds") Collection<Integer> bookIds, @Param("ownerId") Integer ownerId);
+    
+    
+    @Modifying
     @Query("""
-            SELECT transaction
-            FROM BookTransactionHistory  transaction
-            WHERE transaction.user.id = :userId
-            AND transaction.book.id = :bookId
-            AND transaction.returned = false
-            AND transaction.returnApproved = false
+            UPDATE BookTransactionHistory history
+            SET history.ownerId = :ownerId
+            WHERE history.book.id = :bookId
+            AND history.ownerId <> :ownerId
             """)
-    Optional<BookTransactionHistory> findByBookIdAndUserId(@Param("bookId") Integer bookId, @Param("userId") Integer userId);
+    int updateOwnerId(@Param("bookId") Integer bookId, @Param("ownerId") Integer ownerId);
     
 
+    @Query(value = """
+            SELECT new com.piti.java.librarymanagement.repository.projection.BorrowedBookView(
+                    history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+                    book.ratingSum, book.ratingCount, history.returned, history.returnApproved)
+            FROM BookTransactionHistory history
+            JOIN history.book book
+            WHERE history.user.id = :userId
+            """,
+            countQuery = """
+            SELECT COUNT(history)
+            FROM BookTransactionHistory history
+            WHERE history.user.id = :userId
+            """)
+    Page<BorrowedBookView> findAllBorrowedBooks(Pageable pageable, Integer userId);
+    
+    
+    @Query(value = """
+            SELECT new com.piti.java.librarymanagement.repository.projection.BorrowedBookView(
+                    history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+                    book.ratingSum, book.ratingCount, history.returned, history.returnApproved)
+            FROM BookTransactionHistory history
+            JOIN history.book book
+            WHERE history.ownerId = :userId
+            """,
+            countQuery = """
+            SELECT COUNT(history)
+            FROM BookTransactionHistory history
+            WHERE history.ownerId = :userId
+            """)
+    Page<BorrowedBookView> findAllReturnedBooks(Pageable pageable, Integer userId);
+    
+    
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.BorrowedBookView(
+                    history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+                    book.ratingSum, book.ratingCount, history.returned, history.returnApproved)
+            FROM BookTransactionHistory history
+            JOIN history.book book
+            WHERE history.user.id = :userId
+            """)
+    Slice<BorrowedBookView> findBorrowedBooksSlice(Pageable pageable, @Param("userId") Integer userId);
+    
+    
     @Query("""
-            SELECT transaction
-            FROM BookTransactionHistory  transaction
-            WHERE transaction.book.owner.id = :userId
-            AND transaction.book.id = :bookId
-            AND transaction.returned = true
-            AND transaction.returnApproved = false
+            SELECT COUNT(history)
+            FROM BookTransactionHistory history
+            WHERE history.user.id = :userId
             """)
-    Optional<BookTransactionHistory> findByBookIdAndOwnerId(@Param("bookId") Integer bookId, @Param("userId") Integer userId);
+    long countBorrowedBooks(@Param("userId") Integer userId);
+    
     
-
     @Query("""
-            SELECT history
+            SELECT new com.piti.java.librarymanagement.repository.projection.RowVersion(
+                    history.id, COALESCE(history.lastModifiedDate, history.createdDate),
+                    COALESCE(book.lastModifiedDate, book.createdDate))
             FROM BookTransactionHistory history
+            JOIN history.book book
             WHERE history.user.id = :userId
             """)
-    Page<BookTransactionHistory> findAllBorrowedBooks(Pageable pageable, Integer userId);
+    Slice<RowVersion> findBorrowedBookVersions(Pageable pageable, @Param("userId") Integer userId);
+    
+    
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.BorrowedBookView(
+                    history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+                    book.ratingSum, book.ratingCount, history.returned, history.returnApproved)
+            FROM BookTransactionHistory history
+            JOIN history.book book
+            WHERE history.ownerId = :userId
+            """)
+    Slice<BorrowedBookView> findReturnedBooksSlice(Pageable pageable, @Param("userId") Integer userId);
+    
     
+    @Query("""
+            SELECT COUNT(history)
+            FROM BookTransactionHistory history
+            WHERE history.ownerId = :userId
+            """)
+    long countReturnedBooks(@Param("userId") Integer userId);
+    
+    
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.RowVersion(
+                    history.id, COALESCE(history.lastModifiedDate, history.createdDate),
+                    COALESCE(book.lastModifiedDate, book.createdDate))
+            FROM BookTransactionHistory history
+            JOIN history.book book
+            WHERE history.ownerId = :userId
+            """)
+    Slice<RowVersion> findReturnedBookVersions(Pageable pageable, @Param("userId") Integer userId);
+    
+    
+    @Query("""
+            SELECT new com.piti.java.librarymanagement.repository.projection.BorrowedBookView(
+                    history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+                    book.ratingSum, book.ratingCount, history.returned, history.returnApproved)
+            FROM BookTransactionHistory history
+            JOIN history.book book
+            WHERE history.user.id = :userId
+            AND (history.createdDate, history.id) < (:createdDate, :id)
+            ORDER BY history.createdDate DESC, history.id DESC
+            """)
+    List<BorrowedBookView> findBorrowedBooksAfter(@Param("userId") Integer userId,
+                                                  @Param("createdDate") LocalDateTime createdDate,
+                                                  @Param("id") Integer id,
+                                                  Pageable pageable);
     
     
     @Query("""
-            SELECT history
+            SELECT new com.piti.java.librarymanagement.repository.projection.BorrowedBookView(
+                    history.id, history.createdDate, book.id, book.title, book.authorName, book.isbn,
+                    book.ratingSum, book.ratingCount, history.returned, history.returnApproved)
             FROM BookTransactionHistory history
-            WHERE history.book.owner.id = :userId
+            JOIN history.book book
+            WHERE history.ownerId = :userId
+            AND (history.createdDate, history.id) < (:createdDate, :id)
+            ORDER BY history.createdDate DESC, history.id DESC
             """)
-    Page<BookTransactionHistory> findAllReturnedBooks(Pageable pageable, Integer userId);
+    List<BorrowedBookView> findReturnedBooksAfter(@Param("userId") Integer userId,
+                                                  @Param("createdDate") LocalDateTime createdDate,
+                                                  @Param("id") Integer id,
+                                                  Pageable pageable);
 }
@@ -2,17 +2,38 @@ package com.piti.java.librarymanagement.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.piti.java.librarymanagement.model.Feedback;
+import com.piti.java.librarymanagement.repository.projection.FeedbackView;
+import com.piti.java.librarymanagement.repository.projection.RowVersion;
 
 public interface FeedBackRepository extends JpaRepository<Feedback, Integer> {
+    @Query(value = """
+            SELECT new com.piti.java.librarymanagement.repository.projection.FeedbackView(
+                    feedback.note, feedback.comment, feedback.createdBy)
+            FROM Feedback  feedback
+            WHERE feedback.book.id = :bookId
+    """,
+            countQuery = """
+            SELECT COUNT(feedback)
+            FROM Feedback  feedback
+            WHERE feedback.book.id = :bookId
+    """)
+    Page<FeedbackView> findAllByBookId(@Param("bookId") Integer bookId, Pageable pageable);
+    
+    
     @Query("""
-            SELECT feedback
+            SELECT new com.piti.java.librarymanagement.repository.projection.RowVersion(
+                    feedback.id, COALESCE(feedback.lastModifiedDate, feedback.createdDate))
             FROM Feedback  feedback
             WHERE feedback.book.id = :bookId
     """)
-    Page<Feedback> findAllByBookId(@Param("bookId") Integer bookId, Pageable pageable);
+    Slice<RowVersion> findVersionsByBookId(@Param("bookId") Integer bookId, Pageable pageable);
+    
+    
+    long countByBookId(Integer bookId);
 }
@@ -0,0 +1,47 @@
+package com.piti.java.librarymanagement.repository;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.piti.java.librarymanagement.model.Reservation;
+
+public interface ReservationRepository extends JpaRepository<Reservation, Integer> {
+    // Callers already hold the book row lock, so the head is only ever contended by a cancellation
+    @Query(value = """
+            SELECT user_id
+            FROM reservations
+            WHERE book_id = :bookId
+            ORDER BY id
+            LIMIT 1
+            FOR UPDATE
+            """, nativeQuery = true)
+    Optional<Integer> findNextUserIdForUpdate(@Param("bookId") Integer bookId);
+    
+    
+    @Modifying
+    @Query("""
+            DELETE FROM Reservation reservation
+            WHERE reservation.book.id = :bookId
+            AND reservation.user.id = :userId
+            """)
+    int deleteByBookIdAndUserId(@Param("bookId") Integer bookId, @Param("userId") Integer userId);
+    
+    
+    // Archived or unshared books cannot be lent, so their waitlist is dropped
+    @Modifying
+    @Query("""
+            DELETE FROM Reservation reservation
+            WHERE reservation.book.id IN (
+                SELECT book.id
+                FROM Book book
+                WHERE book.id IN :bookIds
+                AND (book.archived = true OR book.shareable = false)
+            )
+            """)
+    int deleteForUndisplayableBooks(@Param("bookIds") Collection<Integer> bookIds);
+}
@@ -0,0 +1,10 @@
+package com.piti.java.librarymanagement.repository.projection;
+
+public record BookCoverView(
+		Integer id,
+		String bookCover,
+		Integer ownerId,
+		boolean archived,
+		boolean shareable
+) {
+}
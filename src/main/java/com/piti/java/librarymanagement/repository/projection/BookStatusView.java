@@ -0,0 +1,9 @@
+package com.piti.java.librarymanagement.repository.projection;
+
+public record BookStatusView(
+		Integer id,
+		Integer ownerId,
+		boolean archived,
+		boolean shareable
+) {
+}
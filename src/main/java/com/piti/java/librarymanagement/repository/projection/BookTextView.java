@@ -0,0 +1,9 @@
+package com.piti.java.librarymanagement.repository.projection;
+
+public record BookTextView(
+		Integer id,
+		String title,
+		String authorName,
+		String isbn
+) {
+}
@@ -0,0 +1,22 @@
+package com.piti.java.librarymanagement.repository.projection;
+
+import java.time.LocalDateTime;
+
+public record BookView(
+		Integer id,
+		LocalDateTime createdDate,
+		String title,
+		String authorName,
+		String isbn,
+		String synopsis,
+		String ownerFirstname,
+		String ownerLastname,
+		String bookCover,
+		double ratingSum,
+		int ratingCount,
+		boolean archived,
+		boolean shareable,
+		int copies,
+		int availableCopies
+) {
+}
@@ -0,0 +1,17 @@
+package com.piti.java.librarymanagement.repository.projection;
+
+import java.time.LocalDateTime;
+
+public record BorrowedBookView(
+		Integer historyId,
+		LocalDateTime createdDate,
+		Integer bookId,
+		String title,
+		String authorName,
+		String isbn,
+		double ratingSum,
+		int ratingCount,
+		boolean returned,
+		boolean returnApproved
+) {
+}
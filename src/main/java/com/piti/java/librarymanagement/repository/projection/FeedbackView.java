@@ -0,0 +1,8 @@
+package com.piti.java.librarymanagement.repository.projection;
+
+public record FeedbackView(
+		Double note,
+		String comment,
+		Integer createdBy
+) {
+}
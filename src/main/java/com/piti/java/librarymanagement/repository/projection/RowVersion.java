@@ -0,0 +1,17 @@
+package com.piti.java.librarymanagement.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * What a response row depends on: the row itself and, for rows showing data of a
+ * related entity (the owner of a book, the book of a loan), that entity.
+ */
+public record RowVersion(
+		Integer id,
+		LocalDateTime modifiedDate,
+		LocalDateTime relatedModifiedDate
+) {
+	public RowVersion(Integer id, LocalDateTime modifiedDate) {
+		this(id, modifiedDate, null);
+	}
+}
@@ -0,0 +1,13 @@
+package com.piti.java.librarymanagement.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.springframework.security.core.Authentication;
+
+import com.piti.java.librarymanagement.dto.ExportFormat;
+import com.piti.java.librarymanagement.dto.ExportScope;
+
+public interface BookExportService {
+	void exportBooks(OutputStream output, ExportFormat format, ExportScope scope, Authentication connectedUser) throws IOException;
+}
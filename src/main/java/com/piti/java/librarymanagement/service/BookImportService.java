@@ -0,0 +1,13 @@
+package com.piti.java.librarymanagement.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+
+import com.piti.java.librarymanagement.dto.BookImportResponse;
+
+public interface BookImportService {
+	BookImportResponse importBooks(InputStream input, MediaType format, Authentication connectedUser) throws IOException;
+}
@@ -1,24 +1,50 @@
 package com.piti.java.librarymanagement.service;
 
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.security.core.Authentication;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.piti.java.librarymanagement.dto.BookBatchResponse;
+import com.piti.java.librarymanagement.dto.BookFields;
 import com.piti.java.librarymanagement.dto.BookRequest;
 import com.piti.java.librarymanagement.dto.BookResponse;
 import com.piti.java.librarymanagement.dto.BorrowedBookResponse;
+import com.piti.java.librarymanagement.dto.BulkOperationResponse;
+import com.piti.java.librarymanagement.dto.CountMode;
+import com.piti.java.librarymanagement.dto.CursorPageResponse;
 import com.piti.java.librarymanagement.dto.PageResponse;
+import com.piti.java.librarymanagement.file.CoverFile;
+import com.piti.java.librarymanagement.file.CoverSize;
 
 public interface BookService {
 	Integer save(BookRequest request, Authentication connectedUser);
-	BookResponse findById(Integer bookId);
-	PageResponse<BookResponse> findAllBooks(int page, int size, Authentication connectedUser);
-	PageResponse<BookResponse> findAllBooksByOwner(int page, int size, Authentication connectedUser);
+	BookResponse findById(Integer bookId, BookFields fields);
+	BookBatchResponse findAllByIds(List<Integer> bookIds, BookFields fields);
+	PageResponse<BookResponse> findAllBooks(int page, int size, CountMode countMode, BookFields fields, Authentication connectedUser);
+	PageResponse<BookResponse> findAllBooksByOwner(int page, int size, CountMode countMode, BookFields fields, Authentication connectedUser);
 	Integer updateShareableStatus(Integer bookId, Authentication connectedUser);
 	Integer updateArchivedStatus(Integer bookId, Authentication connectedUser);
 	Integer borrowBook(Integer bookId, Authentication connectedUser);
+	BulkOperationResponse borrowBooks(List<Integer> bookIds, Authentication connectedUser);
+	Integer reserveBook(Integer bookId, Authentication connectedUser);
+	Integer cancelReservation(Integer bookId, Authentication connectedUser);
 	Integer returnBorrowedBook(Integer bookId, Authentication connectedUser);
 	Integer approveReturnBorrowedBook(Integer bookId, Authentication connectedUser);
+	BulkOperationResponse approveReturnBorrowedBooks(List<Integer> bookIds, Authentication connectedUser);
+	BulkOperationResponse archiveBooks(List<Integer> bookIds, Authentication connectedUser);
+	BulkOperationResponse unshareBooks(List<Integer> bookIds, Authentication connectedUser);
 	void uploadBookCoverPicture(MultipartFile file, Authentication connectedUser, Integer bookId);
-	PageResponse<BorrowedBookResponse> findAllBorrowedBooks(int page, int size, Authentication connectedUser);
-	PageResponse<BorrowedBookResponse> findAllReturnedBooks(int page, int size, Authentication connectedUser);
+	CoverFile findBookCover(Integer bookId, CoverSize size, Authentication connectedUser);
+	PageResponse<BorrowedBookResponse> findAllBorrowedBooks(int page, int size, CountMode countMode, Authentication connectedUser);
+	PageResponse<BorrowedBookResponse> findAllReturnedBooks(int page, int size, CountMode countMode, Authentication connectedUser);
+	PageResponse<BookResponse> searchBooks(String query, int page, int size, BookFields fields, Authentication connectedUser);
+	List<BookResponse> fuzzySearchBooks(String query, int size, BookFields fields, Authentication connectedUser);
+	List<BookResponse> findAllBooksByIsbn(String isbn, BookFields fields, Authentication connectedUser);
+	Map<String, Boolean> findExistingIsbns(List<String> isbns);
+	CursorPageResponse<BookResponse> findAllBooks(String cursor, int size, BookFields fields, Authentication connectedUser);
+	CursorPageResponse<BookResponse> findAllBooksByOwner(String cursor, int size, BookFields fields, Authentication connectedUser);
+	CursorPageResponse<BorrowedBookResponse> findAllBorrowedBooks(String cursor, int size, Authentication connectedUser);
+	CursorPageResponse<BorrowedBookResponse> findAllReturnedBooks(String cursor, int size, Authentication connectedUser);
 }
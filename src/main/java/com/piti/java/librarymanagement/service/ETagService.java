@@ -0,0 +1,16 @@
+package com.piti.java.librarymanagement.service;
+
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+
+import com.piti.java.librarymanagement.dto.BookFields;
+import com.piti.java.librarymanagement.dto.CountMode;
+
+public interface ETagService {
+	String findBookETag(Integer bookId, BookFields fields, MediaType mediaType);
+	String findAllBooksETag(int page, int size, CountMode countMode, BookFields fields, MediaType mediaType, Authentication connectedUser);
+	String findAllBooksByOwnerETag(int page, int size, CountMode countMode, BookFields fields, MediaType mediaType, Authentication connectedUser);
+	String findAllBorrowedBooksETag(int page, int size, CountMode countMode, MediaType mediaType, Authentication connectedUser);
+	String findAllReturnedBooksETag(int page, int size, CountMode countMode, MediaType mediaType, Authentication connectedUser);
+	String findAllFeedbacksByBookETag(Integer bookId, int page, int size, MediaType mediaType, Authentication connectedUser);
+}
@@ -0,0 +1,106 @@
+package com.piti.java.librarymanagement.service.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.stream.Stream;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.piti.java.librarymanagement.dto.BookResponse;
+import com.piti.java.librarymanagement.dto.ExportFormat;
+import com.piti.java.librarymanagement.dto.ExportScope;
+import com.piti.java.librarymanagement.file.CoverSize;
+import com.piti.java.librarymanagement.mapper.BookMapper;
+import com.piti.java.librarymanagement.model.User;
+import com.piti.java.librarymanagement.repository.BookRepository;
+import com.piti.java.librarymanagement.repository.projection.BookView;
+import com.piti.java.librarymanagement.service.BookExportService;
+
+@Service
+public class BookExportServiceImpl implements BookExportService {
+	private static final String CSV_HEADER = "id,title,authorName,isbn,synopsis,owner,rate,archived,shareable,coverUrl";
+
+	private final BookRepository bookRepository;
+	private final BookMapper bookMapper;
+	private final ObjectMapper objectMapper;
+	private final TransactionTemplate readOnlyTransaction;
+
+	public BookExportServiceImpl(BookRepository bookRepository, BookMapper bookMapper, ObjectMapper objectMapper,
+			PlatformTransactionManager transactionManager) {
+		this.bookRepository = bookRepository;
+		this.bookMapper = bookMapper;
+		this.objectMapper = objectMapper;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+	}
+
+	/**
+	 * Writes the books as they come off a forward-only database cursor. Rows are read as
+	 * projections that the persistence context never holds, so memory stays flat whatever
+	 * the catalog size.
+	 */
+	@Override
+	public void exportBooks(OutputStream output, ExportFormat format, ExportScope scope, Authentication connectedUser) throws IOException {
+		User user = ((User) connectedUser.getPrincipal());
+		Writer writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+		if (format == ExportFormat.CSV) {
+			writer.write(CSV_HEADER);
+			writer.write('\n');
+		}
+		try {
+			readOnlyTransaction.executeWithoutResult(status -> {
+				try (Stream<BookView> books = scope == ExportScope.OWNER
+						? bookRepository.streamOwnerBooks(user.getId(), true)
+						: bookRepository.streamCatalogBooks(true)) {
+					books.forEach(book -> writeBook(writer, bookMapper.toBookResponse(book, CoverSize.LIST), format));
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		writer.flush();
+	}
+
+	private void writeBook(Writer writer, BookResponse book, ExportFormat format) {
+		try {
+			if (format == ExportFormat.CSV) {
+				writer.write(String.join(",",
+						String.valueOf(book.getId()),
+						csv(book.getTitle()),
+						csv(book.getAuthorName()),
+						csv(book.getIsbn()),
+						csv(book.getSynopsis()),
+						csv(book.getOwner()),
+						String.valueOf(book.getRate()),
+						String.valueOf(book.isArchived()),
+						String.valueOf(book.isShareable()),
+						csv(book.getCoverUrl())));
+			} else {
+				writer.write(objectMapper.writeValueAsString(book));
+			}
+			writer.write('\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private String csv(String value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+}
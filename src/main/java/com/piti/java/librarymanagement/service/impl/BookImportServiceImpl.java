@@ -0,0 +1,267 @@
+package com.piti.java.librarymanagement.service.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.piti.java.librarymanagement.dto.BookImportError;
+import com.piti.java.librarymanagement.dto.BookImportResponse;
+import com.piti.java.librarymanagement.dto.BookRequest;
+import com.piti.java.librarymanagement.exception.OperationNotPermittedException;
+import com.piti.java.librarymanagement.index.IsbnIndex;
+import com.piti.java.librarymanagement.index.TrigramIndex;
+import com.piti.java.librarymanagement.mapper.BookMapper;
+import com.piti.java.librarymanagement.model.Book;
+import com.piti.java.librarymanagement.model.User;
+import com.piti.java.librarymanagement.repository.BookRepository;
+import com.piti.java.librarymanagement.service.BookImportService;
+import com.piti.java.librarymanagement.validation.IsbnUtils;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookImportServiceImpl implements BookImportService {
+	public static final MediaType TEXT_CSV = MediaType.valueOf("text/csv");
+	public static final MediaType APPLICATION_NDJSON = MediaType.valueOf("application/x-ndjson");
+
+	// A multiple of hibernate.jdbc.batch_size; one transaction and one flush per batch
+	private static final int BATCH_SIZE = 500;
+	private static final int MAX_REPORTED_ERRORS = 1000;
+	private static final String OWNER_ISBN_INDEX = "books_owner_isbn_uk";
+	private static final List<String> CSV_COLUMNS = List.of("title", "authorName", "isbn", "synopsis", "shareable");
+
+	private final BookRepository bookRepository;
+	private final BookMapper bookMapper;
+	private final Validator validator;
+	private final ObjectMapper objectMapper;
+	private final TransactionTemplate transactionTemplate;
+	private final EntityManager entityManager;
+	private final TrigramIndex trigramIndex;
+	private final IsbnIndex isbnIndex;
+
+	@Override
+	public BookImportResponse importBooks(InputStream input, MediaType format, Authentication connectedUser) throws IOException {
+		User user = ((User) connectedUser.getPrincipal());
+		boolean csv = TEXT_CSV.isCompatibleWith(format);
+		ImportReport report = new ImportReport();
+		List<PendingBook> batch = new ArrayList<>(BATCH_SIZE);
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, UTF_8))) {
+			Map<String, Integer> columns = csv ? readCsvHeader(reader.readLine()) : null;
+			long lineNumber = csv ? 1 : 0;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				if (StringUtils.isBlank(line)) {
+					continue;
+				}
+				BookRequest request;
+				try {
+					request = csv ? parseCsvRow(line, columns) : objectMapper.readValue(line, BookRequest.class);
+				} catch (JsonProcessingException | IllegalArgumentException e) {
+					report.reject(lineNumber, Set.of("Malformed row"));
+					continue;
+				}
+				Set<ConstraintViolation<BookRequest>> violations = validator.validate(request);
+				if (!violations.isEmpty()) {
+					Set<String> errors = new LinkedHashSet<>();
+					violations.forEach(violation -> errors.add(violation.getMessage()));
+					report.reject(lineNumber, errors);
+					continue;
+				}
+				Book book = bookMapper.toBook(request);
+				book.setId(null);
+				book.setOwner(user);
+				batch.add(new PendingBook(lineNumber, book));
+				if (batch.size() == BATCH_SIZE) {
+					persist(batch, user, report);
+					batch.clear();
+				}
+			}
+		}
+		if (!batch.isEmpty()) {
+			persist(batch, user, report);
+		}
+		return report.toResponse();
+	}
+
+	private void persist(List<PendingBook> batch, User user, ImportReport report) {
+		Set<String> isbns = new HashSet<>();
+		batch.forEach(pending -> isbns.add(pending.book().getIsbn()));
+		Set<String> taken = new HashSet<>(bookRepository.findOwnedIsbns(user.getId(), isbns));
+
+		List<PendingBook> accepted = new ArrayList<>(batch.size());
+		for (PendingBook pending : batch) {
+			// add() also rejects an ISBN repeated inside the same file
+			if (!taken.add(pending.book().getIsbn())) {
+				report.reject(pending.line(), Set.of("You already own a book with the ISBN:: " + pending.book().getIsbn()));
+				continue;
+			}
+			accepted.add(pending);
+		}
+
+		List<Book> saved;
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				accepted.forEach(pending -> entityManager.persist(pending.book()));
+				entityManager.flush();
+				entityManager.clear();
+			});
+			saved = accepted.stream().map(PendingBook::book).toList();
+		} catch (PersistenceException | DataAccessException | TransactionException e) {
+			// A concurrent write can still break one row of the batch, only that row is reported
+			log.warn("Import batch of {} book(s) failed, retrying them one by one", accepted.size(), e);
+			saved = persistOneByOne(accepted, report);
+		}
+		for (Book book : saved) {
+			trigramIndex.index(book.getId(), book.getTitle(), book.getAuthorName());
+			isbnIndex.put(book.getId(), IsbnUtils.pack(book.getIsbn()));
+		}
+		report.imported += saved.size();
+	}
+
+	private List<Book> persistOneByOne(List<PendingBook> accepted, ImportReport report) {
+		List<Book> saved = new ArrayList<>(accepted.size());
+		for (PendingBook pending : accepted) {
+			Book book = pending.book();
+			// The rolled back batch already assigned an id
+			book.setId(null);
+			try {
+				transactionTemplate.executeWithoutResult(status -> {
+					entityManager.persist(book);
+					entityManager.flush();
+					entityManager.clear();
+				});
+				saved.add(book);
+			} catch (PersistenceException | DataAccessException | TransactionException e) {
+				if (isOwnerIsbnViolation(e)) {
+					report.reject(pending.line(), Set.of("You already own a book with the ISBN:: " + book.getIsbn()));
+				} else {
+					log.warn("Import row {} could not be saved", pending.line(), e);
+					report.reject(pending.line(), Set.of("The book could not be saved"));
+				}
+			}
+		}
+		return saved;
+	}
+
+	private boolean isOwnerIsbnViolation(Throwable error) {
+		for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+			if (cause instanceof ConstraintViolationException violation) {
+				return OWNER_ISBN_INDEX.equals(violation.getConstraintName());
+			}
+		}
+		return false;
+	}
+
+	private Map<String, Integer> readCsvHeader(String header) {
+		if (header == null) {
+			throw new OperationNotPermittedException("The CSV file is empty");
+		}
+		List<String> names = parseCsvLine(header);
+		Map<String, Integer> columns = new HashMap<>();
+		for (int i = 0; i < names.size(); i++) {
+			columns.put(names.get(i).trim(), i);
+		}
+		if (!columns.keySet().containsAll(CSV_COLUMNS)) {
+			throw new OperationNotPermittedException("The CSV header must contain the columns " + CSV_COLUMNS);
+		}
+		return columns;
+	}
+
+	private BookRequest parseCsvRow(String line, Map<String, Integer> columns) {
+		List<String> values = parseCsvLine(line);
+		if (values.size() < columns.size()) {
+			throw new IllegalArgumentException("Missing columns");
+		}
+		return new BookRequest(
+				null,
+				values.get(columns.get("title")),
+				values.get(columns.get("authorName")),
+				values.get(columns.get("isbn")),
+				values.get(columns.get("synopsis")),
+				Boolean.parseBoolean(values.get(columns.get("shareable")).trim()),
+				columns.containsKey("copies") ? Integer.valueOf(values.get(columns.get("copies")).trim()) : null
+		);
+	}
+
+	// RFC 4180 fields on a single line: quoted fields may contain commas and "" escapes
+	private List<String> parseCsvLine(String line) {
+		List<String> values = new ArrayList<>();
+		StringBuilder current = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char character = line.charAt(i);
+			if (quoted) {
+				if (character == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					current.append('"');
+					i++;
+				} else if (character == '"') {
+					quoted = false;
+				} else {
+					current.append(character);
+				}
+			} else if (character == '"') {
+				quoted = true;
+			} else if (character == ',') {
+				values.add(current.toString());
+				current.setLength(0);
+			} else {
+				current.append(character);
+			}
+		}
+		if (quoted) {
+			throw new IllegalArgumentException("Unterminated quoted field");
+		}
+		values.add(current.toString());
+		return values;
+	}
+
+	private record PendingBook(long line, Book book) {
+	}
+
+	private static class ImportReport {
+		private long imported;
+		private long rejected;
+		private final List<BookImportError> errors = new ArrayList<>();
+
+		void reject(long line, Set<String> reasons) {
+			rejected++;
+			if (errors.size() < MAX_REPORTED_ERRORS) {
+				errors.add(new BookImportError(line, reasons));
+			}
+		}
+
+		BookImportResponse toResponse() {
+			return new BookImportResponse(imported, rejected, errors, rejected > errors.size());
+		}
+	}
+}
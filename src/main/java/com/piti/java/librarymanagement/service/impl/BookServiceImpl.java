@@ -1,114 +1,203 @@
 package com.piti.java.librarymanagement.service.impl;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.piti.java.librarymanagement.cache.ApproximateCountCache;
+import com.piti.java.librarymanagement.dto.BookBatchResponse;
+import com.piti.java.librarymanagement.dto.BookFields;
 import com.piti.java.librarymanagement.dto.BookRequest;
 import com.piti.java.librarymanagement.dto.BookResponse;
 import com.piti.java.librarymanagement.dto.BorrowedBookResponse;
+import com.piti.java.librarymanagement.dto.BulkOperationResponse;
+import com.piti.java.librarymanagement.dto.CountMode;
+import com.piti.java.librarymanagement.dto.Cursor;
+import com.piti.java.librarymanagement.dto.CursorPageResponse;
 import com.piti.java.librarymanagement.dto.PageResponse;
 import com.piti.java.librarymanagement.exception.OperationNotPermittedException;
+import com.piti.java.librarymanagement.file.CoverFile;
+import com.piti.java.librarymanagement.file.CoverSize;
 import com.piti.java.librarymanagement.file.FileStorageService;
+import com.piti.java.librarymanagement.file.ThumbnailService;
+import com.piti.java.librarymanagement.index.IsbnIndex;
+import com.piti.java.librarymanagement.index.TrigramIndex;
 import com.piti.java.librarymanagement.mapper.BookMapper;
 import com.piti.java.librarymanagement.model.Book;
 import com.piti.java.librarymanagement.model.BookTransactionHistory;
+import com.piti.java.librarymanagement.model.Reservation;
 import com.piti.java.librarymanagement.model.User;
 import com.piti.java.librarymanagement.repository.BookRepository;
 import com.piti.java.librarymanagement.repository.BookTransactionHistoryRepository;
+import com.piti.java.librarymanagement.repository.ReservationRepository;
+import com.piti.java.librarymanagement.repository.UserRepository;
+import com.piti.java.librarymanagement.repository.projection.BookCoverView;
+import com.piti.java.librarymanagement.repository.projection.BookStatusView;
+import com.piti.java.librarymanagement.repository.projection.BookView;
+import com.piti.java.librarymanagement.repository.projection.BorrowedBookView;
 import com.piti.java.librarymanagement.service.BookService;
+import com.piti.java.librarymanagement.validation.IsbnUtils;
 
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import static com.piti.java.librarymanagement.spec.BookSpecification.withOwnerId;
-
 @Service
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
 public class BookServiceImpl implements BookService{
+	private static final int MAX_BATCH_IDS = 200;
+	private static final String ACTIVE_LOAN_INDEX = "book_transaction_history_active_borrower_uk";
+	private static final String RESERVATION_INDEX = "reservations_book_user_uk";
+
 	private final BookRepository bookRepository;
     private final BookMapper bookMapper;
     private final BookTransactionHistoryRepository transactionHistoryRepository;
     private final FileStorageService fileStorageService;
+    private final ThumbnailService thumbnailService;
+    private final ApproximateCountCache approximateCountCache;
+    private final TrigramIndex trigramIndex;
+    private final IsbnIndex isbnIndex;
+    private final ReservationRepository reservationRepository;
+    private final UserRepository userRepository;
 
 	@Override
 	public Integer save(BookRequest request, Authentication connectedUser) {
 		User user = ((User) connectedUser.getPrincipal());
         Book book = bookMapper.toBook(request);
         book.setOwner(user);
-        return bookRepository.save(book).getId();
+        long isbn = IsbnUtils.pack(book.getIsbn());
+        List<Integer> sameIsbnBookIds = Arrays.stream(isbnIndex.find(isbn))
+                .filter(id -> !Objects.equals(id, request.id()))
+                .boxed()
+                .toList();
+        if (!sameIsbnBookIds.isEmpty() && bookRepository.existsByIdInAndOwnerId(sameIsbnBookIds, user.getId())) {
+            throw new OperationNotPermittedException("You already own a book with the ISBN:: " + book.getIsbn());
+        }
+        Integer bookId = bookRepository.save(book).getId();
+        if (request.id() != null) {
+            // Saving an existing book hands it to the current user, loans follow their book
+            transactionHistoryRepository.updateOwnerId(bookId, user.getId());
+            if (request.copies() != null) {
+                Integer availableCopies = bookRepository.updateCopies(bookId, request.copies())
+                        .orElseThrow(() -> new OperationNotPermittedException("You cannot have fewer copies than the ones currently lent"));
+                // Added copies serve the waitlist first, as long as the book can be lent at all
+                int handedOff = 0;
+                while (book.isShareable() && !book.isArchived()
+                        && handedOff < availableCopies && handOffToWaitlist(bookId, user.getId())) {
+                    handedOff++;
+                }
+            }
+            reservationRepository.deleteForUndisplayableBooks(List.of(bookId));
+        }
+        afterCommit(() -> {
+            trigramIndex.index(bookId, book.getTitle(), book.getAuthorName());
+            isbnIndex.put(bookId, isbn);
+        });
+        return bookId;
 	}
 	
 
 	@Override
-	public BookResponse findById(Integer bookId) {
-		return bookRepository.findById(bookId)
-                .map(bookMapper::toBookResponse)
+	@Transactional(readOnly = true)
+	public BookResponse findById(Integer bookId, BookFields fields) {
+		return bookRepository.findViewById(bookId, fields.withSynopsis())
+                .map(book -> bookMapper.toBookResponse(book, CoverSize.DETAIL))
                 .orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + bookId));
 	}
 	
 
 	@Override
-	public PageResponse<BookResponse> findAllBooks(int page, int size, Authentication connectedUser) {
+	@Transactional(readOnly = true)
+	public BookBatchResponse findAllByIds(List<Integer> bookIds, BookFields fields) {
+		Set<Integer> requestedIds = bookIds.stream()
+				.filter(Objects::nonNull)
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+		if (requestedIds.size() > MAX_BATCH_IDS) {
+			throw new OperationNotPermittedException("You cannot request more than " + MAX_BATCH_IDS + " books at once");
+		}
+		Map<Integer, BookView> books = requestedIds.isEmpty()
+				? Map.of()
+				: bookRepository.findAllViewsByIds(requestedIds, fields.withSynopsis()).stream()
+						.collect(Collectors.toMap(BookView::id, Function.identity()));
+		List<BookResponse> found = new ArrayList<>(books.size());
+		List<Integer> missingIds = new ArrayList<>();
+		for (Integer bookId : requestedIds) {
+			BookView book = books.get(bookId);
+			if (book == null) {
+				missingIds.add(bookId);
+			} else {
+				found.add(bookMapper.toBookResponse(book, CoverSize.LIST));
+			}
+		}
+		return new BookBatchResponse(found, missingIds);
+	}
+	
+
+	@Override
+	@Transactional(readOnly = true)
+	public PageResponse<BookResponse> findAllBooks(int page, int size, CountMode countMode, BookFields fields, Authentication connectedUser) {
 		User user = ((User) connectedUser.getPrincipal());
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-        Page<Book> books = bookRepository.findAllDisplayableBooks(pageable, user.getId());
-        List<BookResponse> booksResponse = books.stream()
-                .map(bookMapper::toBookResponse)
-                .toList();
-        return new PageResponse<>(
-                booksResponse,
-                books.getNumber(),
-                books.getSize(),
-                books.getTotalElements(),
-                books.getTotalPages(),
-                books.isFirst(),
-                books.isLast()
-        );
+        Function<BookView, BookResponse> mapper = book -> bookMapper.toBookResponse(book, CoverSize.LIST);
+        if (countMode == CountMode.EXACT) {
+            return toPageResponse(bookRepository.findAllDisplayableBooks(pageable, user.getId(), fields.withSynopsis()), mapper);
+        }
+        return toPageResponse(bookRepository.findDisplayableBooksSlice(pageable, user.getId(), fields.withSynopsis()), mapper, countMode,
+                "displayable:" + user.getId(), () -> bookRepository.countDisplayableBooks(user.getId()));
 	}
 
 
 	@Override
-	public PageResponse<BookResponse> findAllBooksByOwner(int page, int size, Authentication connectedUser) {
-		 User user = ((User) connectedUser.getPrincipal());
-	        Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-	        Page<Book> books = bookRepository.findAll(withOwnerId(user.getId()), pageable);
-	        List<BookResponse> booksResponse = books.stream()
-	                .map(bookMapper::toBookResponse)
-	                .toList();
-	        return new PageResponse<>(
-	                booksResponse,
-	                books.getNumber(),
-	                books.getSize(),
-	                books.getTotalElements(),
-	                books.getTotalPages(),
-	                books.isFirst(),
-	                books.isLast()
-	        );
+	@Transactional(readOnly = true)
+	public PageResponse<BookResponse> findAllBooksByOwner(int page, int size, CountMode countMode, BookFields fields, Authentication connectedUser) {
+		User user = ((User) connectedUser.getPrincipal());
+        Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
+        Function<BookView, BookResponse> mapper = book -> bookMapper.toBookResponse(book, CoverSize.LIST);
+        if (countMode == CountMode.EXACT) {
+            return toPageResponse(bookRepository.findAllOwnerBooks(pageable, user.getId(), fields.withSynopsis()), mapper);
+        }
+        return toPageResponse(bookRepository.findOwnerBooksSlice(pageable, user.getId(), fields.withSynopsis()), mapper, countMode,
+                "owner:" + user.getId(), () -> bookRepository.countByOwnerId(user.getId()));
 	}
 
 
 	@Override
 	public Integer updateShareableStatus(Integer bookId, Authentication connectedUser) {
-		Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + bookId));
         User user = ((User) connectedUser.getPrincipal());
-        if (!Objects.equals(book.getOwner().getId(), user.getId())) {
+        if (bookRepository.toggleShareable(bookId, user.getId()) == 0) {
+            findBookStatus(bookId);
             throw new OperationNotPermittedException("You cannot update others books shareable status");
         }
-        book.setShareable(!book.isShareable());
-        bookRepository.save(book);
+        reservationRepository.deleteForUndisplayableBooks(List.of(bookId));
         return bookId;
 	}
 	
@@ -116,87 +205,243 @@ public class BookServiceImpl implements BookService{
 
 	@Override
 	public Integer updateArchivedStatus(Integer bookId, Authentication connectedUser) {
-		Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + bookId));
         User user = ((User) connectedUser.getPrincipal());
-        if (!Objects.equals(book.getOwner().getId(), user.getId())) {
+        if (bookRepository.toggleArchived(bookId, user.getId()) == 0) {
+            findBookStatus(bookId);
             throw new OperationNotPermittedException("You cannot update others books archived status");
         }
-        book.setArchived(!book.isArchived());
-        bookRepository.save(book);
+        reservationRepository.deleteForUndisplayableBooks(List.of(bookId));
         return bookId;
 	}
 
 
 	@Override
 	public Integer borrowBook(Integer bookId, Authentication connectedUser) {
-		  Book book = bookRepository.findById(bookId)
-	                .orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + bookId));
-	        if (book.isArchived() || !book.isShareable()) {
+	        BookStatusView book = findBookStatus(bookId);
+	        if (book.archived() || !book.shareable()) {
 	            throw new OperationNotPermittedException("The requested book cannot be borrowed since it is archived or not shareable");
 	        }
 	        User user = ((User) connectedUser.getPrincipal());
-	        if (Objects.equals(book.getOwner().getId(), user.getId())) {
+	        if (Objects.equals(book.ownerId(), user.getId())) {
 	            throw new OperationNotPermittedException("You cannot borrow your own book");
 	        }
-	        final boolean isAlreadyBorrowedByUser = transactionHistoryRepository.isAlreadyBorrowedByUser(bookId, user.getId());
-	        if (isAlreadyBorrowedByUser) {
+	        if (transactionHistoryRepository.isAlreadyBorrowedByUser(bookId, user.getId())) {
 	            throw new OperationNotPermittedException("You already borrowed this book and it is still not returned or the return is not approved by the owner");
 	        }
-
-	        final boolean isAlreadyBorrowedByOtherUser = transactionHistoryRepository.isAlreadyBorrowed(bookId);
-	        if (isAlreadyBorrowedByOtherUser) {
-	            throw new OperationNotPermittedException("Te requested book is already borrowed");
-	        }
+	        // Holds the book row until commit, an insert failure below gives the copy back
+	        bookRepository.takeCopy(bookId)
+	                .orElseThrow(() -> new OperationNotPermittedException("Te requested book is already borrowed"));
 
 	        BookTransactionHistory bookTransactionHistory = BookTransactionHistory.builder()
 	                .user(user)
-	                .book(book)
+	                .book(bookRepository.getReferenceById(bookId))
+	                .ownerId(book.ownerId())
 	                .returned(false)
 	                .returnApproved(false)
 	                .build();
-	        return transactionHistoryRepository.save(bookTransactionHistory).getId();
+	        try {
+	            return transactionHistoryRepository.saveAndFlush(bookTransactionHistory).getId();
+	        } catch (DataIntegrityViolationException e) {
+	            if (e.getCause() instanceof ConstraintViolationException violation
+	                    && ACTIVE_LOAN_INDEX.equals(violation.getConstraintName())) {
+	                throw new OperationNotPermittedException("You already borrowed this book and it is still not returned or the return is not approved by the owner");
+	            }
+	            throw e;
+	        }
 
 	}
 
 
 	@Override
-	public Integer returnBorrowedBook(Integer bookId, Authentication connectedUser) {
-		Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + bookId));
-        if (book.isArchived() || !book.isShareable()) {
-            throw new OperationNotPermittedException("The requested book is archived or not shareable");
+	public BulkOperationResponse borrowBooks(List<Integer> bookIds, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        Set<Integer> requestedIds = toBulkIds(bookIds);
+        if (requestedIds.isEmpty()) {
+            return new BulkOperationResponse(List.of(), Map.of());
+        }
+        Map<Integer, BookStatusView> books = bookRepository.findAllStatusesByIds(requestedIds).stream()
+                .collect(Collectors.toMap(BookStatusView::id, Function.identity()));
+        Set<Integer> alreadyBorrowed = new HashSet<>(transactionHistoryRepository.findBorrowedBookIds(user.getId(), requestedIds));
+
+        Map<Integer, String> failures = new LinkedHashMap<>();
+        List<Integer> candidateIds = new ArrayList<>();
+        for (Integer bookId : requestedIds) {
+            BookStatusView book = books.get(bookId);
+            if (book == null) {
+                failures.put(bookId, "No book found with ID:: " + bookId);
+            } else if (book.archived() || !book.shareable()) {
+                failures.put(bookId, "The requested book cannot be borrowed since it is archived or not shareable");
+            } else if (Objects.equals(book.ownerId(), user.getId())) {
+                failures.put(bookId, "You cannot borrow your own book");
+            } else if (alreadyBorrowed.contains(bookId)) {
+                failures.put(bookId, "You already borrowed this book and it is still not returned or the return is not approved by the owner");
+            } else {
+                candidateIds.add(bookId);
+            }
+        }
+
+        // One conditional decrement for all the candidates, the books without a copy left are not returned
+        Set<Integer> taken = candidateIds.isEmpty()
+                ? Set.of()
+                : new HashSet<>(bookRepository.takeCopies(candidateIds));
+        List<Integer> borrowedIds = new ArrayList<>();
+        List<BookTransactionHistory> loans = new ArrayList<>();
+        for (Integer bookId : candidateIds) {
+            if (!taken.contains(bookId)) {
+                failures.put(bookId, "Te requested book is already borrowed");
+                continue;
+            }
+            borrowedIds.add(bookId);
+            loans.add(BookTransactionHistory.builder()
+                    .user(user)
+                    .book(bookRepository.getReferenceById(bookId))
+                    .ownerId(books.get(bookId).ownerId())
+                    .returned(false)
+                    .returnApproved(false)
+                    .build());
+        }
+
+        // Sequence ids and hibernate.jdbc.batch_size let the flush send the inserts as one batch
+        try {
+            transactionHistoryRepository.saveAllAndFlush(loans);
+        } catch (DataIntegrityViolationException e) {
+            if (e.getCause() instanceof ConstraintViolationException violation
+                    && ACTIVE_LOAN_INDEX.equals(violation.getConstraintName())) {
+                throw new OperationNotPermittedException("One of the requested books was borrowed meanwhile, please retry");
+            }
+            throw e;
+        }
+        return new BulkOperationResponse(borrowedIds, failures);
+	}
+
+
+	@Override
+	public Integer reserveBook(Integer bookId, Authentication connectedUser) {
+        BookStatusView book = findBookStatus(bookId);
+        if (book.archived() || !book.shareable()) {
+            throw new OperationNotPermittedException("The requested book cannot be borrowed since it is archived or not shareable");
         }
         User user = ((User) connectedUser.getPrincipal());
-        if (Objects.equals(book.getOwner().getId(), user.getId())) {
-            throw new OperationNotPermittedException("You cannot borrow or return your own book");
+        if (Objects.equals(book.ownerId(), user.getId())) {
+            throw new OperationNotPermittedException("You cannot borrow your own book");
+        }
+        if (transactionHistoryRepository.isAlreadyBorrowedByUser(bookId, user.getId())) {
+            throw new OperationNotPermittedException("You already borrowed this book and it is still not returned or the return is not approved by the owner");
+        }
+        // A copy left means an empty waitlist, so queueing would only delay the borrower
+        if (bookRepository.lockAvailableCopies(bookId).orElse(0) > 0) {
+            throw new OperationNotPermittedException("A copy of the requested book is available, borrow it instead");
+        }
+
+        Reservation reservation = Reservation.builder()
+                .book(bookRepository.getReferenceById(bookId))
+                .user(user)
+                .build();
+        try {
+            return reservationRepository.saveAndFlush(reservation).getId();
+        } catch (DataIntegrityViolationException e) {
+            if (e.getCause() instanceof ConstraintViolationException violation
+                    && RESERVATION_INDEX.equals(violation.getConstraintName())) {
+                throw new OperationNotPermittedException("You are already on the waitlist of this book");
+            }
+            throw e;
         }
+	}
 
-        BookTransactionHistory bookTransactionHistory = transactionHistoryRepository.findByBookIdAndUserId(bookId, user.getId())
-                .orElseThrow(() -> new OperationNotPermittedException("You did not borrow this book"));
 
-        bookTransactionHistory.setReturned(true);
-        return transactionHistoryRepository.save(bookTransactionHistory).getId();
+	@Override
+	public Integer cancelReservation(Integer bookId, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        if (reservationRepository.deleteByBookIdAndUserId(bookId, user.getId()) == 0) {
+            throw new OperationNotPermittedException("You are not on the waitlist of this book");
+        }
+        return bookId;
+	}
+
+
+	@Override
+	public Integer returnBorrowedBook(Integer bookId, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        // The update carries every rule; the status is only read back to explain a refusal
+        return transactionHistoryRepository.markReturned(bookId, user.getId())
+                .orElseThrow(() -> {
+                    BookStatusView book = findBookStatus(bookId);
+                    if (book.archived() || !book.shareable()) {
+                        return new OperationNotPermittedException("The requested book is archived or not shareable");
+                    }
+                    if (Objects.equals(book.ownerId(), user.getId())) {
+                        return new OperationNotPermittedException("You cannot borrow or return your own book");
+                    }
+                    return new OperationNotPermittedException("You did not borrow this book");
+                });
 	}
 
 
 	@Override
 	public Integer approveReturnBorrowedBook(Integer bookId, Authentication connectedUser) {
-		Book book = bookRepository.findById(bookId)
-	                .orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + bookId));
-        if (book.isArchived() || !book.isShareable()) {
-            throw new OperationNotPermittedException("The requested book is archived or not shareable");
+        User user = ((User) connectedUser.getPrincipal());
+        Integer historyId = transactionHistoryRepository.approveReturn(bookId, user.getId())
+                .orElseThrow(() -> {
+                    BookStatusView book = findBookStatus(bookId);
+                    if (book.archived() || !book.shareable()) {
+                        return new OperationNotPermittedException("The requested book is archived or not shareable");
+                    }
+                    if (!Objects.equals(book.ownerId(), user.getId())) {
+                        return new OperationNotPermittedException("You cannot approve the return of a book you do not own");
+                    }
+                    return new OperationNotPermittedException("The book is not returned yet. You cannot approve its return");
+                });
+        restock(List.of(bookId), user.getId());
+        return historyId;
+	}
+
+
+	@Override
+	public BulkOperationResponse approveReturnBorrowedBooks(List<Integer> bookIds, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        // Without ids every pending return of the owner is approved
+        if (bookIds == null || bookIds.isEmpty()) {
+            List<Integer> returned = transactionHistoryRepository.approveAllReturns(user.getId());
+            restock(returned, user.getId());
+            return new BulkOperationResponse(returned.stream().distinct().toList(), Map.of());
         }
+        Set<Integer> requestedIds = toBulkIds(bookIds);
+        // A book lent several times comes back once per approved loan
+        List<Integer> returned = transactionHistoryRepository.approveReturns(requestedIds, user.getId());
+        restock(returned, user.getId());
+        return toBulkResponse(requestedIds, returned.stream().distinct().toList(), book -> {
+            if (book.archived() || !book.shareable()) {
+                return "The requested book is archived or not shareable";
+            }
+            if (!Objects.equals(book.ownerId(), user.getId())) {
+                return "You cannot approve the return of a book you do not own";
+            }
+            return "The book is not returned yet. You cannot approve its return";
+        });
+	}
+
+
+	@Override
+	public BulkOperationResponse archiveBooks(List<Integer> bookIds, Authentication connectedUser) {
         User user = ((User) connectedUser.getPrincipal());
-        if (!Objects.equals(book.getOwner().getId(), user.getId())) {
-            throw new OperationNotPermittedException("You cannot approve the return of a book you do not own");
+        Set<Integer> requestedIds = toBulkIds(bookIds);
+        List<Integer> archived = requestedIds.isEmpty() ? List.of() : bookRepository.archiveAll(requestedIds, user.getId());
+        if (!archived.isEmpty()) {
+            reservationRepository.deleteForUndisplayableBooks(archived);
         }
+        return toBulkResponse(requestedIds, archived, book -> "You cannot update others books archived status");
+	}
 
-        BookTransactionHistory bookTransactionHistory = transactionHistoryRepository.findByBookIdAndOwnerId(bookId, user.getId())
-                .orElseThrow(() -> new OperationNotPermittedException("The book is not returned yet. You cannot approve its return"));
 
-        bookTransactionHistory.setReturnApproved(true);
-        return transactionHistoryRepository.save(bookTransactionHistory).getId();
+	@Override
+	public BulkOperationResponse unshareBooks(List<Integer> bookIds, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        Set<Integer> requestedIds = toBulkIds(bookIds);
+        List<Integer> unshared = requestedIds.isEmpty() ? List.of() : bookRepository.unshareAll(requestedIds, user.getId());
+        if (!unshared.isEmpty()) {
+            reservationRepository.deleteForUndisplayableBooks(unshared);
+        }
+        return toBulkResponse(requestedIds, unshared, book -> "You cannot update others books shareable status");
 	}
 
 
@@ -208,49 +453,320 @@ public class BookServiceImpl implements BookService{
         var profilePicture = fileStorageService.saveFile(file, bookId, user.getId());
         book.setBookCover(profilePicture);
         bookRepository.save(book);
+        if (profilePicture != null) {
+            thumbnailService.generateThumbnails(profilePicture);
+        }
 		
 	}
 
 
 	@Override
-	public PageResponse<BorrowedBookResponse> findAllBorrowedBooks(int page, int size, Authentication connectedUser) {
+	@Transactional(readOnly = true)
+	public CoverFile findBookCover(Integer bookId, CoverSize size, Authentication connectedUser) {
+		BookCoverView book = bookRepository.findCoverById(bookId)
+                .orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + bookId));
+        boolean shared = !book.archived() && book.shareable();
+        // The endpoint is public: hidden books keep their cover for their owner only
+        boolean owner = connectedUser != null && connectedUser.getPrincipal() instanceof User user
+                && Objects.equals(user.getId(), book.ownerId());
+        if (book.bookCover() == null || !shared && !owner) {
+            throw new EntityNotFoundException("No cover found for the book with ID:: " + bookId);
+        }
+        Path cover = thumbnailService.resolve(book.bookCover(), size);
+        if (!Files.isReadable(cover)) {
+            throw new EntityNotFoundException("No cover found for the book with ID:: " + bookId);
+        }
+        return new CoverFile(cover, shared, size == CoverSize.ORIGINAL || !cover.equals(Path.of(book.bookCover())));
+	}
+
+
+	@Override
+	@Transactional(readOnly = true)
+	public PageResponse<BorrowedBookResponse> findAllBorrowedBooks(int page, int size, CountMode countMode, Authentication connectedUser) {
 		User user = ((User) connectedUser.getPrincipal());
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-        Page<BookTransactionHistory> allBorrowedBooks = transactionHistoryRepository.findAllBorrowedBooks(pageable, user.getId());
-        List<BorrowedBookResponse> booksResponse = allBorrowedBooks.stream()
-                .map(bookMapper::toBorrowedBookResponse)
-                .toList();
-        return new PageResponse<>(
-                booksResponse,
-                allBorrowedBooks.getNumber(),
-                allBorrowedBooks.getSize(),
-                allBorrowedBooks.getTotalElements(),
-                allBorrowedBooks.getTotalPages(),
-                allBorrowedBooks.isFirst(),
-                allBorrowedBooks.isLast()
-        );
+        if (countMode == CountMode.EXACT) {
+            return toPageResponse(transactionHistoryRepository.findAllBorrowedBooks(pageable, user.getId()),
+                    bookMapper::toBorrowedBookResponse);
+        }
+        return toPageResponse(transactionHistoryRepository.findBorrowedBooksSlice(pageable, user.getId()),
+                bookMapper::toBorrowedBookResponse, countMode,
+                "borrowed:" + user.getId(), () -> transactionHistoryRepository.countBorrowedBooks(user.getId()));
 	}
 
 
 	@Override
-	public PageResponse<BorrowedBookResponse> findAllReturnedBooks(int page, int size, Authentication connectedUser) {
+	@Transactional(readOnly = true)
+	public PageResponse<BorrowedBookResponse> findAllReturnedBooks(int page, int size, CountMode countMode, Authentication connectedUser) {
 		User user = ((User) connectedUser.getPrincipal());
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-        Page<BookTransactionHistory> allBorrowedBooks = transactionHistoryRepository.findAllReturnedBooks(pageable, user.getId());
-        List<BorrowedBookResponse> booksResponse = allBorrowedBooks.stream()
-                .map(bookMapper::toBorrowedBookResponse)
-                .toList();
-        return new PageResponse<>(
-                booksResponse,
-                allBorrowedBooks.getNumber(),
-                allBorrowedBooks.getSize(),
-                allBorrowedBooks.getTotalElements(),
-                allBorrowedBooks.getTotalPages(),
-                allBorrowedBooks.isFirst(),
-                allBorrowedBooks.isLast()
-        );
+        if (countMode == CountMode.EXACT) {
+            return toPageResponse(transactionHistoryRepository.findAllReturnedBooks(pageable, user.getId()),
+                    bookMapper::toBorrowedBookResponse);
+        }
+        return toPageResponse(transactionHistoryRepository.findReturnedBooksSlice(pageable, user.getId()),
+                bookMapper::toBorrowedBookResponse, countMode,
+                "returned:" + user.getId(), () -> transactionHistoryRepository.countReturnedBooks(user.getId()));
+	}
+
+
+	@Override
+	@Transactional(readOnly = true)
+	public PageResponse<BookResponse> searchBooks(String query, int page, int size, BookFields fields, Authentication connectedUser) {
+		User user = ((User) connectedUser.getPrincipal());
+		// Results are ordered by relevance inside the query, the pageable only carries the window
+		Pageable pageable = PageRequest.of(page, size);
+		Page<Integer> rankedIds = bookRepository.searchDisplayableBookIds(query, user.getId(), pageable);
+		Map<Integer, BookView> books = rankedIds.isEmpty()
+				? Map.of()
+				: bookRepository.findAllDisplayableBooksByIds(rankedIds.getContent(), user.getId(), fields.withSynopsis()).stream()
+						.collect(Collectors.toMap(BookView::id, Function.identity()));
+		// A book may stop being displayable between the two queries, such rows are just skipped
+		List<BookResponse> content = rankedIds.stream()
+				.map(books::get)
+				.filter(Objects::nonNull)
+				.map(book -> bookMapper.toBookResponse(book, CoverSize.LIST))
+				.toList();
+		return toPageResponse(new PageImpl<>(content, pageable, rankedIds.getTotalElements()), Function.identity());
+	}
+
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<BookResponse> fuzzySearchBooks(String query, int size, BookFields fields, Authentication connectedUser) {
+		User user = ((User) connectedUser.getPrincipal());
+		// Over-fetch candidates since some will be dropped by the displayable rule
+		List<Integer> rankedIds = trigramIndex.search(query, size * 4);
+		if (rankedIds.isEmpty()) {
+			return List.of();
+		}
+		Map<Integer, BookView> books = bookRepository.findAllDisplayableBooksByIds(rankedIds, user.getId(), fields.withSynopsis()).stream()
+				.collect(Collectors.toMap(BookView::id, Function.identity()));
+		return rankedIds.stream()
+				.map(books::get)
+				.filter(Objects::nonNull)
+				.limit(size)
+				.map(book -> bookMapper.toBookResponse(book, CoverSize.LIST))
+				.toList();
+	}
+
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<BookResponse> findAllBooksByIsbn(String isbn, BookFields fields, Authentication connectedUser) {
+		User user = ((User) connectedUser.getPrincipal());
+		String normalizedIsbn = IsbnUtils.normalize(isbn);
+		if (normalizedIsbn == null) {
+			throw new OperationNotPermittedException("The ISBN " + isbn + " is not a valid ISBN-10 or ISBN-13");
+		}
+		List<Integer> bookIds = Arrays.stream(isbnIndex.find(IsbnUtils.pack(normalizedIsbn))).boxed().toList();
+		if (bookIds.isEmpty()) {
+			return List.of();
+		}
+		return bookRepository.findAllVisibleBooksByIds(bookIds, user.getId(), fields.withSynopsis()).stream()
+				.map(book -> bookMapper.toBookResponse(book, CoverSize.LIST))
+				.toList();
+	}
+
+
+	@Override
+	public Map<String, Boolean> findExistingIsbns(List<String> isbns) {
+		Map<String, Boolean> existing = new LinkedHashMap<>();
+		for (String isbn : isbns) {
+			String normalizedIsbn = IsbnUtils.normalize(isbn);
+			existing.put(isbn, normalizedIsbn != null && isbnIndex.contains(IsbnUtils.pack(normalizedIsbn)));
+		}
+		return existing;
+	}
+
+
+	@Override
+	@Transactional(readOnly = true)
+	public CursorPageResponse<BookResponse> findAllBooks(String cursor, int size, BookFields fields, Authentication connectedUser) {
+		User user = ((User) connectedUser.getPrincipal());
+		Cursor position = Cursor.decode(cursor);
+		List<BookView> books = bookRepository.findDisplayableBooksAfter(
+				user.getId(), position.createdDate(), position.id(), fields.withSynopsis(), cursorWindow(size));
+		return toCursorPage(books, size, book -> new Cursor(book.createdDate(), book.id()),
+				book -> bookMapper.toBookResponse(book, CoverSize.LIST));
+	}
+
+
+	@Override
+	@Transactional(readOnly = true)
+	public CursorPageResponse<BookResponse> findAllBooksByOwner(String cursor, int size, BookFields fields, Authentication connectedUser) {
+		User user = ((User) connectedUser.getPrincipal());
+		Cursor position = Cursor.decode(cursor);
+		List<BookView> books = bookRepository.findOwnerBooksAfter(
+				user.getId(), position.createdDate(), position.id(), fields.withSynopsis(), cursorWindow(size));
+		return toCursorPage(books, size, book -> new Cursor(book.createdDate(), book.id()),
+				book -> bookMapper.toBookResponse(book, CoverSize.LIST));
+	}
+
+
+	@Override
+	@Transactional(readOnly = true)
+	public CursorPageResponse<BorrowedBookResponse> findAllBorrowedBooks(String cursor, int size, Authentication connectedUser) {
+		User user = ((User) connectedUser.getPrincipal());
+		Cursor position = Cursor.decode(cursor);
+		List<BorrowedBookView> histories = transactionHistoryRepository.findBorrowedBooksAfter(
+				user.getId(), position.createdDate(), position.id(), cursorWindow(size));
+		return toCursorPage(histories, size, history -> new Cursor(history.createdDate(), history.historyId()),
+				bookMapper::toBorrowedBookResponse);
+	}
+
+
+	@Override
+	@Transactional(readOnly = true)
+	public CursorPageResponse<BorrowedBookResponse> findAllReturnedBooks(String cursor, int size, Authentication connectedUser) {
+		User user = ((User) connectedUser.getPrincipal());
+		Cursor position = Cursor.decode(cursor);
+		List<BorrowedBookView> histories = transactionHistoryRepository.findReturnedBooksAfter(
+				user.getId(), position.createdDate(), position.id(), cursorWindow(size));
+		return toCursorPage(histories, size, history -> new Cursor(history.createdDate(), history.historyId()),
+				bookMapper::toBorrowedBookResponse);
+	}
+
+
+	private Set<Integer> toBulkIds(List<Integer> bookIds) {
+		Set<Integer> requestedIds = bookIds == null ? Set.of() : new LinkedHashSet<>(bookIds);
+		if (requestedIds.size() > MAX_BATCH_IDS) {
+			throw new OperationNotPermittedException("You cannot send more than " + MAX_BATCH_IDS + " books at once");
+		}
+		return requestedIds;
+	}
+
+
+	// Refused ids are explained with one extra query, and only when there are any
+	private BulkOperationResponse toBulkResponse(Set<Integer> requestedIds, List<Integer> succeededIds,
+			Function<BookStatusView, String> reason) {
+		Set<Integer> refusedIds = new LinkedHashSet<>(requestedIds);
+		succeededIds.forEach(refusedIds::remove);
+		Map<Integer, String> failures = new LinkedHashMap<>();
+		if (!refusedIds.isEmpty()) {
+			Map<Integer, BookStatusView> books = bookRepository.findAllStatusesByIds(refusedIds).stream()
+					.collect(Collectors.toMap(BookStatusView::id, Function.identity()));
+			for (Integer id : refusedIds) {
+				BookStatusView book = books.get(id);
+				failures.put(id, book == null ? "No book found with ID:: " + id : reason.apply(book));
+			}
+		}
+		return new BulkOperationResponse(succeededIds, failures);
+	}
+
+
+	private BookStatusView findBookStatus(Integer bookId) {
+		return bookRepository.findStatusById(bookId)
+				.orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + bookId));
+	}
+
+
+	// One entry per copy put back by an approval
+	private void restock(List<Integer> returnedBookIds, Integer ownerId) {
+		for (Integer bookId : returnedBookIds) {
+			handOffToWaitlist(bookId, ownerId);
+		}
+	}
+
+
+	/**
+	 * Lends a copy that just came back to the head of the book's waitlist, in the caller's
+	 * transaction. The book row is already locked by the counter update, so the copy cannot
+	 * be taken by a direct borrow in between. Entries that can no longer borrow the book are
+	 * dropped on the way; the served entry is only removed once its loan is written.
+	 */
+	private boolean handOffToWaitlist(Integer bookId, Integer ownerId) {
+		Optional<Integer> next;
+		while ((next = reservationRepository.findNextUserIdForUpdate(bookId)).isPresent()) {
+			Integer borrowerId = next.get();
+			if (Objects.equals(ownerId, borrowerId)
+					|| transactionHistoryRepository.isAlreadyBorrowedByUser(bookId, borrowerId)) {
+				reservationRepository.deleteByBookIdAndUserId(bookId, borrowerId);
+				continue;
+			}
+			if (bookRepository.takeCopy(bookId).isEmpty()) {
+				return false;
+			}
+			transactionHistoryRepository.saveAndFlush(BookTransactionHistory.builder()
+					.user(userRepository.getReferenceById(borrowerId))
+					.book(bookRepository.getReferenceById(bookId))
+					.ownerId(ownerId)
+					.returned(false)
+					.returnApproved(false)
+					.build());
+			reservationRepository.deleteByBookIdAndUserId(bookId, borrowerId);
+			return true;
+		}
+		return false;
+	}
+
+
+	// In-memory structures must not see changes that end up rolled back
+	private void afterCommit(Runnable action) {
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+
+
+	private <E, R> PageResponse<R> toPageResponse(Page<E> page, Function<E, R> mapper) {
+		return new PageResponse<>(
+				page.stream().map(mapper).toList(),
+				page.getNumber(),
+				page.getSize(),
+				page.getTotalElements(),
+				page.getTotalPages(),
+				page.isFirst(),
+				page.isLast()
+		);
+	}
+
+
+	private <E, R> PageResponse<R> toPageResponse(Slice<E> slice, Function<E, R> mapper, CountMode countMode,
+			String countKey, LongSupplier counter) {
+		long totalElements = -1;
+		int totalPages = -1;
+		if (countMode == CountMode.APPROXIMATE) {
+			// Never report fewer elements than this slice proves to exist
+			long seen = slice.getPageable().getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0);
+			totalElements = Math.max(seen, approximateCountCache.get(countKey, counter).orElse(seen));
+			totalPages = (int) Math.ceil((double) totalElements / slice.getSize());
+		}
+		return new PageResponse<>(
+				slice.stream().map(mapper).toList(),
+				slice.getNumber(),
+				slice.getSize(),
+				totalElements,
+				totalPages,
+				slice.isFirst(),
+				slice.isLast(),
+				countMode == CountMode.APPROXIMATE
+		);
+	}
+
+
+	// Rows are fetched with one extra element so the last page is known without a count
+	private Pageable cursorWindow(int size) {
+		if (size < 1) {
+			throw new OperationNotPermittedException("The page size must be at least 1");
+		}
+		return PageRequest.of(0, size + 1);
+	}
+
+
+	private <E, R> CursorPageResponse<R> toCursorPage(List<E> rows, int size, Function<E, Cursor> position,
+			Function<E, R> mapper) {
+		boolean last = rows.size() <= size;
+		List<E> content = last ? rows : rows.subList(0, size);
+		return new CursorPageResponse<>(
+				content.stream().map(mapper).toList(),
+				size,
+				last ? null : position.apply(content.get(content.size() - 1)).encode(),
+				last
+		);
 	}
-	
-	
 
 }
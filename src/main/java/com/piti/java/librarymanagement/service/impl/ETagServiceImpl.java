@@ -0,0 +1,116 @@
+package com.piti.java.librarymanagement.service.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.function.LongSupplier;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
+
+import com.piti.java.librarymanagement.dto.BookFields;
+import com.piti.java.librarymanagement.dto.CountMode;
+import com.piti.java.librarymanagement.model.User;
+import com.piti.java.librarymanagement.repository.BookRepository;
+import com.piti.java.librarymanagement.repository.BookTransactionHistoryRepository;
+import com.piti.java.librarymanagement.repository.FeedBackRepository;
+import com.piti.java.librarymanagement.repository.projection.RowVersion;
+import com.piti.java.librarymanagement.service.ETagService;
+
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Weak ETags computed from the ids and modification dates of the rows a response is
+ * made of, so a conditional GET can be answered before the response is built.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ETagServiceImpl implements ETagService {
+	private final BookRepository bookRepository;
+	private final BookTransactionHistoryRepository transactionHistoryRepository;
+	private final FeedBackRepository feedBackRepository;
+
+	@Override
+	public String findBookETag(Integer bookId, BookFields fields, MediaType mediaType) {
+		RowVersion version = bookRepository.findVersionById(bookId)
+				.orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + bookId));
+		StringBuilder signature = new StringBuilder("book|").append(fields).append('|').append(mediaType);
+		append(signature, version);
+		return toETag(signature);
+	}
+
+	@Override
+	public String findAllBooksETag(int page, int size, CountMode countMode, BookFields fields, MediaType mediaType, Authentication connectedUser) {
+		User user = ((User) connectedUser.getPrincipal());
+		Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
+		return toETag("books:" + fields, mediaType, user, countMode, bookRepository.findDisplayableBookVersions(pageable, user.getId()),
+				() -> bookRepository.countDisplayableBooks(user.getId()));
+	}
+
+	@Override
+	public String findAllBooksByOwnerETag(int page, int size, CountMode countMode, BookFields fields, MediaType mediaType, Authentication connectedUser) {
+		User user = ((User) connectedUser.getPrincipal());
+		Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
+		return toETag("owner:" + fields, mediaType, user, countMode, bookRepository.findOwnerBookVersions(pageable, user.getId()),
+				() -> bookRepository.countByOwnerId(user.getId()));
+	}
+
+	@Override
+	public String findAllBorrowedBooksETag(int page, int size, CountMode countMode, MediaType mediaType, Authentication connectedUser) {
+		User user = ((User) connectedUser.getPrincipal());
+		Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
+		return toETag("borrowed", mediaType, user, countMode, transactionHistoryRepository.findBorrowedBookVersions(pageable, user.getId()),
+				() -> transactionHistoryRepository.countBorrowedBooks(user.getId()));
+	}
+
+	@Override
+	public String findAllReturnedBooksETag(int page, int size, CountMode countMode, MediaType mediaType, Authentication connectedUser) {
+		User user = ((User) connectedUser.getPrincipal());
+		Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
+		return toETag("returned", mediaType, user, countMode, transactionHistoryRepository.findReturnedBookVersions(pageable, user.getId()),
+				() -> transactionHistoryRepository.countReturnedBooks(user.getId()));
+	}
+
+	@Override
+	public String findAllFeedbacksByBookETag(Integer bookId, int page, int size, MediaType mediaType, Authentication connectedUser) {
+		User user = ((User) connectedUser.getPrincipal());
+		Pageable pageable = PageRequest.of(page, size, FeedbackServiceImpl.FEEDBACK_SORT);
+		return toETag("feedbacks:" + bookId, mediaType, user, CountMode.EXACT, feedBackRepository.findVersionsByBookId(bookId, pageable),
+				() -> feedBackRepository.countByBookId(bookId));
+	}
+
+	// Approximate totals are not part of the tag, they are allowed to lag behind anyway
+	private String toETag(String listing, MediaType mediaType, User user, CountMode countMode, Slice<RowVersion> versions,
+			LongSupplier counter) {
+		StringBuilder signature = new StringBuilder(listing)
+				.append('|').append(mediaType)
+				.append('|').append(user.getId())
+				.append('|').append(countMode)
+				.append('|').append(versions.getNumber())
+				.append('|').append(versions.getSize())
+				.append('|').append(versions.hasNext());
+		if (countMode == CountMode.EXACT) {
+			signature.append('|').append(counter.getAsLong());
+		}
+		versions.forEach(version -> append(signature, version));
+		return toETag(signature);
+	}
+
+	private void append(StringBuilder signature, RowVersion version) {
+		signature.append('|').append(version.id())
+				.append(':').append(version.modifiedDate())
+				.append(':').append(version.relatedModifiedDate());
+	}
+
+	private String toETag(CharSequence signature) {
+		return "W/\"" + DigestUtils.md5DigestAsHex(signature.toString().getBytes(UTF_8)) + "\"";
+	}
+}
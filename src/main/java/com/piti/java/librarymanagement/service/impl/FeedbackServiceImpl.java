@@ -6,8 +6,10 @@ import java.util.Objects;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.piti.java.librarymanagement.dto.FeedbackRequest;
 import com.piti.java.librarymanagement.dto.FeedbackResponse;
@@ -19,6 +21,7 @@ import com.piti.java.librarymanagement.model.Feedback;
 import com.piti.java.librarymanagement.model.User;
 import com.piti.java.librarymanagement.repository.BookRepository;
 import com.piti.java.librarymanagement.repository.FeedBackRepository;
+import com.piti.java.librarymanagement.repository.projection.FeedbackView;
 import com.piti.java.librarymanagement.service.FeedbackService;
 
 import jakarta.persistence.EntityNotFoundException;
@@ -27,11 +30,15 @@ import lombok.RequiredArgsConstructor;
 @Service
 @RequiredArgsConstructor
 public class FeedbackServiceImpl implements FeedbackService{
+	// A stable order, otherwise the same page could hold different rows between two polls
+	static final Sort FEEDBACK_SORT = Sort.by("id");
+
 	private final FeedBackRepository feedBackRepository;
     private final BookRepository bookRepository;
     private final FeedbackMapper feedbackMapper;
 
 	@Override
+	@Transactional
 	public Integer save(FeedbackRequest request, Authentication connectedUser) {
 		Book book = bookRepository.findById(request.bookId())
                 .orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + request.bookId()));
@@ -43,15 +50,20 @@ public class FeedbackServiceImpl implements FeedbackService{
             throw new OperationNotPermittedException("You cannot give feedback to your own book");
         }
         Feedback feedback = feedbackMapper.toFeedback(request);
-        return feedBackRepository.save(feedback).getId();
+        Integer feedbackId = feedBackRepository.save(feedback).getId();
+        if (feedback.getNote() != null) {
+            bookRepository.addRating(book.getId(), feedback.getNote());
+        }
+        return feedbackId;
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public PageResponse<FeedbackResponse> findAllFeedbacksByBook(Integer bookId, int page, int size,
 			Authentication connectedUser) {
-		Pageable pageable = PageRequest.of(page, size);
+		Pageable pageable = PageRequest.of(page, size, FEEDBACK_SORT);
         User user = ((User) connectedUser.getPrincipal());
-        Page<Feedback> feedbacks = feedBackRepository.findAllByBookId(bookId, pageable);
+        Page<FeedbackView> feedbacks = feedBackRepository.findAllByBookId(bookId, pageable);
         List<FeedbackResponse> feedbackResponses = feedbacks.stream()
                 .map(f -> feedbackMapper.toFeedbackResponse(f, user.getId()))
                 .toList();
@@ -1,11 +0,0 @@
-package com.piti.java.librarymanagement.spec;
-
-import org.springframework.data.jpa.domain.Specification;
-
-import com.piti.java.librarymanagement.model.Book;
-
-public class BookSpecification {
-	 public static Specification<Book> withOwnerId(Integer ownerId) {
-	     return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("owner").get("id"), ownerId);
-	 }
-}
@@ -0,0 +1,55 @@
+package com.piti.java.librarymanagement.validation;
+
+public class IsbnUtils {
+	private IsbnUtils() {
+	}
+
+	/**
+	 * Normalizes an ISBN-10 or ISBN-13, with or without separators, to its 13 digit
+	 * form. Returns {@code null} when the value is not a valid ISBN.
+	 */
+	public static String normalize(String isbn) {
+		if (isbn == null) {
+			return null;
+		}
+		String compact = isbn.replaceAll("[\\s-]", "").toUpperCase();
+		if (compact.length() == 10 && compact.matches("\\d{9}[\\dX]") && isValidIsbn10(compact)) {
+			String withoutCheck = "978" + compact.substring(0, 9);
+			return withoutCheck + isbn13CheckDigit(withoutCheck);
+		}
+		if (compact.length() == 13 && compact.matches("97[89]\\d{10}")
+				&& isbn13CheckDigit(compact.substring(0, 12)) == compact.charAt(12) - '0') {
+			return compact;
+		}
+		return null;
+	}
+
+	/**
+	 * Packs a normalized ISBN-13 into a {@code long}; 13 decimal digits always fit.
+	 */
+	public static long pack(String normalizedIsbn) {
+		return Long.parseLong(normalizedIsbn);
+	}
+
+	private static boolean isValidIsbn10(String isbn) {
+		int sum = 0;
+		for (int i = 0; i < 10; i++) {
+			char character = isbn.charAt(i);
+			int digit = character == 'X' ? 10 : character - '0';
+			if (digit == 10 && i != 9) {
+				return false;
+			}
+			sum += digit * (10 - i);
+		}
+		return sum % 11 == 0;
+	}
+
+	private static int isbn13CheckDigit(String firstTwelveDigits) {
+		int sum = 0;
+		for (int i = 0; i < 12; i++) {
+			int digit = firstTwelveDigits.charAt(i) - '0';
+			sum += i % 2 == 0 ? digit : digit * 3;
+		}
+		return (10 - sum % 10) % 10;
+	}
+}
@@ -0,0 +1,12 @@
+package com.piti.java.librarymanagement.validation;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class IsbnValidator implements ConstraintValidator<ValidIsbn, String> {
+	@Override
+	public boolean isValid(String value, ConstraintValidatorContext context) {
+		// Presence is checked by @NotNull / @NotEmpty
+		return value == null || value.isEmpty() || IsbnUtils.normalize(value) != null;
+	}
+}
@@ -0,0 +1,98 @@
+-- Schema as previously generated by hibernate.ddl-auto=update. Existing databases are
+-- baselined at this version (spring.flyway.baseline-on-migrate) and skip this script.
+
+CREATE SEQUENCE book_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE book_transaction_history_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE feedback_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE role_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE token_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE user_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE users (
+    id integer NOT NULL,
+    firstname varchar(255),
+    lastname varchar(255),
+    date_of_birth date,
+    email varchar(255),
+    password varchar(255),
+    account_locked boolean NOT NULL,
+    enabled boolean NOT NULL,
+    created_date timestamp(6) NOT NULL,
+    last_modified_date timestamp(6),
+    CONSTRAINT users_pkey PRIMARY KEY (id),
+    CONSTRAINT users_email_key UNIQUE (email)
+);
+
+CREATE TABLE roles (
+    id integer NOT NULL,
+    name varchar(255),
+    created_date timestamp(6) NOT NULL,
+    last_modified_date timestamp(6),
+    CONSTRAINT roles_pkey PRIMARY KEY (id),
+    CONSTRAINT roles_name_key UNIQUE (name)
+);
+
+CREATE TABLE users_roles (
+    user_id integer NOT NULL,
+    roles_id integer NOT NULL,
+    CONSTRAINT users_roles_user_fk FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT users_roles_role_fk FOREIGN KEY (roles_id) REFERENCES roles (id)
+);
+
+CREATE TABLE tokens (
+    id integer NOT NULL,
+    token varchar(255),
+    created_at timestamp(6),
+    expires_at timestamp(6),
+    validated_at timestamp(6),
+    user_id integer NOT NULL,
+    CONSTRAINT tokens_pkey PRIMARY KEY (id),
+    CONSTRAINT tokens_token_key UNIQUE (token),
+    CONSTRAINT tokens_user_fk FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE books (
+    id integer NOT NULL,
+    title varchar(255),
+    author_name varchar(255),
+    isbn varchar(255),
+    synopsis varchar(255),
+    book_cover varchar(255),
+    archived boolean NOT NULL,
+    shareable boolean NOT NULL,
+    owner_id integer,
+    created_date timestamp(6) NOT NULL,
+    last_modified_date timestamp(6),
+    created_by integer NOT NULL,
+    last_modified_by integer,
+    CONSTRAINT books_pkey PRIMARY KEY (id),
+    CONSTRAINT books_owner_fk FOREIGN KEY (owner_id) REFERENCES users (id)
+);
+
+CREATE TABLE feedbacks (
+    id integer NOT NULL,
+    note float(53),
+    comment varchar(255),
+    book_id integer,
+    created_date timestamp(6) NOT NULL,
+    last_modified_date timestamp(6),
+    created_by integer NOT NULL,
+    last_modified_by integer,
+    CONSTRAINT feedbacks_pkey PRIMARY KEY (id),
+    CONSTRAINT feedbacks_book_fk FOREIGN KEY (book_id) REFERENCES books (id)
+);
+
+CREATE TABLE book_transaction_history (
+    id integer NOT NULL,
+    user_id integer,
+    book_id integer,
+    returned boolean NOT NULL,
+    return_approved boolean NOT NULL,
+    created_date timestamp(6) NOT NULL,
+    last_modified_date timestamp(6),
+    created_by integer NOT NULL,
+    last_modified_by integer,
+    CONSTRAINT book_transaction_history_pkey PRIMARY KEY (id),
+    CONSTRAINT book_transaction_history_user_fk FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT book_transaction_history_book_fk FOREIGN KEY (book_id) REFERENCES books (id)
+);
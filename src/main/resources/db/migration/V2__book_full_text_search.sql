@@ -0,0 +1,9 @@
+-- Formerly applied from schema.sql on every startup, hence IF NOT EXISTS for baselined databases
+ALTER TABLE books ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(author_name, '')), 'B') ||
+        setweight(to_tsvector('english', coalesce(synopsis, '')), 'C')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS books_search_vector_idx ON books USING GIN (search_vector);
@@ -0,0 +1,31 @@
+-- At most one active loan per book, enforced by the database so concurrent borrows cannot both succeed.
+-- Also serves the active loan lookups by book (borrow, return, approve, availability rebuild).
+CREATE UNIQUE INDEX IF NOT EXISTS book_transaction_history_active_loan_uk
+    ON book_transaction_history (book_id) WHERE return_approved = false;
+
+-- Borrowed listings of a user, newest first, including the keyset scroll
+CREATE INDEX book_transaction_history_user_created_idx
+    ON book_transaction_history (user_id, created_date DESC, id DESC);
+
+-- Loans of a book, used when listing the returns of an owner's books
+CREATE INDEX book_transaction_history_book_idx
+    ON book_transaction_history (book_id);
+
+-- Displayable catalog listing, newest first, including the keyset scroll
+CREATE INDEX books_displayable_created_idx
+    ON books (created_date DESC, id DESC) WHERE archived = false AND shareable = true;
+
+-- Owner listings, newest first, including the keyset scroll
+CREATE INDEX books_owner_created_idx
+    ON books (owner_id, created_date DESC, id DESC);
+
+-- Feedback pages of a book in id order and their count
+CREATE INDEX feedbacks_book_idx
+    ON feedbacks (book_id, id);
+
+-- Tokens of a user and the eagerly loaded roles of a user
+CREATE INDEX tokens_user_idx
+    ON tokens (user_id);
+
+CREATE INDEX users_roles_user_idx
+    ON users_roles (user_id);
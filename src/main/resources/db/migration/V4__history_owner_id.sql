@@ -0,0 +1,13 @@
+-- Copy of books.owner_id on each loan so the owner's views are range scans on the history alone
+ALTER TABLE book_transaction_history ADD COLUMN owner_id integer;
+
+UPDATE book_transaction_history history
+SET owner_id = book.owner_id
+FROM books book
+WHERE book.id = history.book_id;
+
+ALTER TABLE book_transaction_history
+    ADD CONSTRAINT book_transaction_history_owner_fk FOREIGN KEY (owner_id) REFERENCES users (id);
+
+CREATE INDEX book_transaction_history_owner_created_idx
+    ON book_transaction_history (owner_id, created_date DESC, id DESC);
@@ -0,0 +1,22 @@
+-- A book row stands for all the copies of a title owned by one user
+ALTER TABLE books
+    ADD COLUMN copies integer DEFAULT 1 NOT NULL,
+    ADD COLUMN available_copies integer DEFAULT 1 NOT NULL;
+
+UPDATE books book
+SET available_copies = 0
+WHERE EXISTS (
+    SELECT 1
+    FROM book_transaction_history history
+    WHERE history.book_id = book.id
+    AND history.return_approved = false
+);
+
+ALTER TABLE books
+    ADD CONSTRAINT books_copies_ck CHECK (copies >= 1),
+    ADD CONSTRAINT books_available_copies_ck CHECK (available_copies BETWEEN 0 AND copies);
+
+-- Several users may now hold a copy of the same book, each of them at most one
+DROP INDEX book_transaction_history_active_loan_uk;
+CREATE UNIQUE INDEX book_transaction_history_active_borrower_uk
+    ON book_transaction_history (book_id, user_id) WHERE return_approved = false;
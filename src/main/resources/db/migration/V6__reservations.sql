@@ -0,0 +1,20 @@
+CREATE SEQUENCE reservation_seq START WITH 1 INCREMENT BY 50;
+
+-- Waitlist of a book, served in id order when a copy comes back
+CREATE TABLE reservations (
+    id integer NOT NULL,
+    book_id integer NOT NULL,
+    user_id integer NOT NULL,
+    created_date timestamp(6) NOT NULL,
+    last_modified_date timestamp(6),
+    created_by integer NOT NULL,
+    last_modified_by integer,
+    CONSTRAINT reservations_pkey PRIMARY KEY (id),
+    CONSTRAINT reservations_book_fk FOREIGN KEY (book_id) REFERENCES books (id),
+    CONSTRAINT reservations_user_fk FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT reservations_book_user_uk UNIQUE (book_id, user_id)
+);
+
+-- Head of a book's queue in one index probe
+CREATE INDEX reservations_book_idx
+    ON reservations (book_id, id);
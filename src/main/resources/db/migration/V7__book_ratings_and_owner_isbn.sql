@@ -0,0 +1,42 @@
+-- The rating aggregate and the owner/ISBN constraint predate Flyway but not the baseline
+-- schema. Databases that ran ddl-auto=update in between may already have them, hence the
+-- existence checks.
+ALTER TABLE books
+    ADD COLUMN IF NOT EXISTS rating_sum float(53) DEFAULT 0 NOT NULL,
+    ADD COLUMN IF NOT EXISTS rating_count integer DEFAULT 0 NOT NULL;
+
+UPDATE books book
+SET rating_sum = aggregate.rating_sum,
+    rating_count = aggregate.rating_count
+FROM (
+    SELECT b.id, COALESCE(SUM(f.note), 0) AS rating_sum, COUNT(f.note) AS rating_count
+    FROM books b
+    LEFT JOIN feedbacks f ON f.book_id = b.id
+    GROUP BY b.id
+) aggregate
+WHERE aggregate.id = book.id
+AND (book.rating_sum <> aggregate.rating_sum OR book.rating_count <> aggregate.rating_count);
+
+-- An owner's oldest book keeps a duplicated ISBN, the later ones lose it rather than their
+-- loans and feedbacks
+UPDATE books book
+SET isbn = NULL
+WHERE EXISTS (
+    SELECT 1
+    FROM books other
+    WHERE other.owner_id = book.owner_id
+    AND other.isbn = book.isbn
+    AND other.id < book.id
+);
+
+DO $$
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1
+        FROM pg_constraint
+        WHERE conname = 'books_owner_isbn_uk'
+        AND conrelid = 'books'::regclass
+    ) THEN
+        ALTER TABLE books ADD CONSTRAINT books_owner_isbn_uk UNIQUE (owner_id, isbn);
+    END IF;
+END $$;
@@ -0,0 +1,135 @@
+package com.piti.java.librarymanagement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationState;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+class FlywayMigrationTest extends PostgresIntegrationTest {
+	private static final String LEGACY_SCHEMA = "legacy";
+
+	@Autowired
+	private Flyway flyway;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	// The context only starts once Hibernate's ddl-auto: validate accepted the migrated schema
+	@Test
+	void appliesEveryMigrationToAnEmptyDatabase() {
+		MigrationInfo[] applied = flyway.info().applied();
+
+		assertThat(applied)
+				.extracting(info -> info.getVersion().getVersion())
+				.containsExactly("1", "2", "3", "4", "5", "6", "7");
+		assertThat(applied).allMatch(info -> info.getState() == MigrationState.SUCCESS);
+		assertThat(flyway.info().pending()).isEmpty();
+	}
+
+	@Test
+	void appliedMigrationsMatchTheScripts() {
+		assertThat(flyway.validateWithResult().validationSuccessful).isTrue();
+	}
+
+	/**
+	 * A database created by ddl-auto=update before Flyway is baselined at V1, so it must end
+	 * up with the same schema as an empty one migrated from scratch.
+	 */
+	@Test
+	void baselinesAPreFlywayDatabaseAndMigratesItToTheCurrentSchema() {
+		jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + LEGACY_SCHEMA + " CASCADE");
+		jdbcTemplate.execute("CREATE SCHEMA " + LEGACY_SCHEMA);
+		try {
+			DataSource legacyDataSource = legacyDataSource();
+			new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__baseline_schema.sql"))
+					.execute(legacyDataSource);
+			JdbcTemplate legacy = new JdbcTemplate(legacyDataSource);
+			legacy.update("""
+					INSERT INTO users (id, email, account_locked, enabled, created_date)
+					VALUES (1, 'owner@library.test', false, true, LOCALTIMESTAMP)
+					""");
+			legacy.update("""
+					INSERT INTO books (id, title, isbn, archived, shareable, owner_id, created_date, created_by)
+					VALUES (1, 'First', '9780201633610', false, true, 1, LOCALTIMESTAMP, 1),
+					       (2, 'Duplicate', '9780201633610', false, true, 1, LOCALTIMESTAMP, 1)
+					""");
+			legacy.update("""
+					INSERT INTO feedbacks (id, note, book_id, created_date, created_by)
+					VALUES (1, 4, 1, LOCALTIMESTAMP, 1), (2, 5, 1, LOCALTIMESTAMP, 1), (3, NULL, 1, LOCALTIMESTAMP, 1)
+					""");
+
+			Flyway legacyFlyway = Flyway.configure()
+					.dataSource(legacyDataSource)
+					.schemas(LEGACY_SCHEMA)
+					.baselineOnMigrate(true)
+					.baselineVersion("1")
+					.load();
+			legacyFlyway.migrate();
+
+			MigrationInfo[] applied = legacyFlyway.info().applied();
+			assertThat(applied)
+					.extracting(info -> info.getVersion().getVersion())
+					.containsExactly("1", "2", "3", "4", "5", "6", "7");
+			assertThat(applied[0].getState()).isEqualTo(MigrationState.BASELINE);
+			assertThat(legacy.queryForMap("SELECT rating_sum, rating_count FROM books WHERE id = 1"))
+					.containsEntry("rating_sum", 9.0)
+					.containsEntry("rating_count", 2);
+			assertThat(legacy.queryForList("SELECT isbn FROM books ORDER BY id", String.class))
+					.containsExactly("9780201633610", null);
+			assertThat(columns(LEGACY_SCHEMA)).isEqualTo(columns("public"));
+			assertThat(constraints(LEGACY_SCHEMA)).isEqualTo(constraints("public"));
+			assertThat(indexes(LEGACY_SCHEMA)).isEqualTo(indexes("public"));
+		} finally {
+			jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + LEGACY_SCHEMA + " CASCADE");
+		}
+	}
+
+	private static DataSource legacyDataSource() {
+		String url = POSTGRES.getJdbcUrl();
+		return new DriverManagerDataSource(url + (url.contains("?") ? "&" : "?") + "currentSchema=" + LEGACY_SCHEMA,
+				POSTGRES.getUsername(), POSTGRES.getPassword());
+	}
+
+	private List<Map<String, Object>> columns(String schema) {
+		return jdbcTemplate.queryForList("""
+				SELECT table_name, column_name, data_type, is_nullable, column_default, generation_expression
+				FROM information_schema.columns
+				WHERE table_schema = ?
+				AND table_name <> 'flyway_schema_history'
+				ORDER BY table_name, column_name
+				""", schema);
+	}
+
+	// NOT NULL checks carry generated names, so only the named constraints are compared
+	private List<Map<String, Object>> constraints(String schema) {
+		return jdbcTemplate.queryForList("""
+				SELECT table_name, constraint_name, constraint_type
+				FROM information_schema.table_constraints
+				WHERE constraint_schema = ?
+				AND table_name <> 'flyway_schema_history'
+				AND constraint_name NOT LIKE '%_not_null'
+				ORDER BY table_name, constraint_name
+				""", schema);
+	}
+
+	private List<Map<String, Object>> indexes(String schema) {
+		return jdbcTemplate.queryForList("""
+				SELECT tablename, indexname
+				FROM pg_indexes
+				WHERE schemaname = ?
+				AND tablename <> 'flyway_schema_history'
+				ORDER BY tablename, indexname
+				""", schema);
+	}
+}
@@ -0,0 +1,88 @@
+package com.piti.java.librarymanagement;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import com.piti.java.librarymanagement.model.Book;
+import com.piti.java.librarymanagement.model.User;
+import com.piti.java.librarymanagement.repository.BookRepository;
+import com.piti.java.librarymanagement.repository.UserRepository;
+
+/**
+ * Base class of the tests that need the real schema: a PostgreSQL container migrated by
+ * Flyway at startup, plus helpers to seed users and books and to authenticate a user.
+ * The container is started once per JVM and shared by every subclass, so the cached
+ * application context never points at a stopped database.
+ */
+@SpringBootTest
+@ActiveProfiles({"dev", "test"})
+public abstract class PostgresIntegrationTest {
+
+	@ServiceConnection
+	protected static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	// The database outlives a test class, every fixture gets its own email and ISBN
+	private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+	static {
+		POSTGRES.start();
+	}
+
+	@Autowired
+	protected UserRepository userRepository;
+	@Autowired
+	protected BookRepository bookRepository;
+
+	@AfterEach
+	void clearSecurityContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	protected User createUser() {
+		int n = SEQUENCE.incrementAndGet();
+		return userRepository.save(User.builder()
+				.firstname("Reader")
+				.lastname(String.valueOf(n))
+				.email("reader" + n + "@library.test")
+				.password("{noop}password")
+				.enabled(true)
+				.roles(List.of())
+				.build());
+	}
+
+	protected Book createBook(User owner, int copies) {
+		int n = SEQUENCE.incrementAndGet();
+		return bookRepository.save(Book.builder()
+				.title("Title " + n)
+				.authorName("Author " + n)
+				.isbn(String.format("978%010d", n))
+				.synopsis("Synopsis " + n)
+				.shareable(true)
+				.owner(owner)
+				.copies(copies)
+				.availableCopies(copies)
+				// No security context while seeding, so the auditor has to be set by hand
+				.createdBy(owner.getId())
+				.build());
+	}
+
+	/**
+	 * Authenticates {@code user} on the calling thread, the audit fields of the rows
+	 * the services insert are read from there.
+	 */
+	protected static Authentication authenticate(User user) {
+		Authentication authentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+		return authentication;
+	}
+}
@@ -0,0 +1,26 @@
+package com.piti.java.librarymanagement.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+
+class ApproximateCountCacheTest {
+
+	@Test
+	void evictsTheLeastRecentlyReadTotalWhenFull() {
+		ApproximateCountCache cache = new ApproximateCountCache(new SyncTaskExecutor(), Duration.ofMinutes(5), 2);
+		cache.get("a", () -> 1);
+		cache.get("b", () -> 2);
+		cache.get("a", () -> 1);
+
+		cache.get("c", () -> 3);
+
+		assertThat(cache.get("a", () -> -1)).isEqualTo(OptionalLong.of(1));
+		assertThat(cache.get("c", () -> -1)).isEqualTo(OptionalLong.of(3));
+		assertThat(cache.get("b", () -> -1)).isEmpty();
+	}
+}
@@ -0,0 +1,84 @@
+package com.piti.java.librarymanagement.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.piti.java.librarymanagement.dto.BookResponse;
+import com.piti.java.librarymanagement.dto.PageResponse;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Payload size and serialization time of a full page of books in each encoding
+ * {@link WebConfig} can negotiate.
+ */
+@Slf4j
+@Tag("benchmark")
+class JacksonEncodingBenchmarkTest {
+	private static final int PAGE_SIZE = 50;
+	private static final int WARMUP_ITERATIONS = 2_000;
+	private static final int MEASURED_ITERATIONS = 10_000;
+
+	@ParameterizedTest
+	@ValueSource(strings = {"json", "cbor", "smile"})
+	void serializeAPageOfBooks(String encoding) throws Exception {
+		ObjectMapper mapper = mapperFor(encoding);
+		PageResponse<BookResponse> page = page();
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			mapper.writeValueAsBytes(page);
+		}
+
+		int bytes = 0;
+		long started = System.nanoTime();
+		for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+			bytes = mapper.writeValueAsBytes(page).length;
+		}
+		long micros = (System.nanoTime() - started) / 1_000 / MEASURED_ITERATIONS;
+
+		log.info("{}: {} bytes per page of {} books, {} µs per page", encoding, bytes, PAGE_SIZE, micros);
+		assertThat(mapper.readValue(mapper.writeValueAsBytes(page), PageResponse.class).getContent()).hasSize(PAGE_SIZE);
+	}
+
+	private static ObjectMapper mapperFor(String encoding) {
+		ObjectMapper mapper = switch (encoding) {
+			case "cbor" -> new CBORMapper();
+			case "smile" -> new SmileMapper();
+			default -> new JsonMapper();
+		};
+		// Same default as WebConfig, BookResponse carries a @JsonFilter
+		return mapper.setFilterProvider(new SimpleFilterProvider()
+				.setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+	}
+
+	private static PageResponse<BookResponse> page() {
+		List<BookResponse> books = IntStream.range(0, PAGE_SIZE)
+				.mapToObj(i -> BookResponse.builder()
+						.id(1_000 + i)
+						.title("The Pragmatic Programmer, volume " + i)
+						.authorName("David Thomas, Andrew Hunt")
+						.isbn(String.format("978%010d", i))
+						.synopsis("From journeyman to master, a practical guide to software craftsmanship.")
+						.owner("Reader " + i)
+						.coverUrl("/books/" + (1_000 + i) + "/cover?size=LIST")
+						.rate(4.5)
+						.shareable(true)
+						.copies(3)
+						.availableCopies(i % 4)
+						.available(i % 4 > 0)
+						.build())
+				.toList();
+		return new PageResponse<>(books, 0, PAGE_SIZE, 500, 10, true, false);
+	}
+}
@@ -0,0 +1,121 @@
+package com.piti.java.librarymanagement.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.piti.java.librarymanagement.PostgresIntegrationTest;
+import com.piti.java.librarymanagement.model.Book;
+import com.piti.java.librarymanagement.model.User;
+
+@AutoConfigureMockMvc
+class BookControllerEncodingTest extends PostgresIntegrationTest {
+	private static final String CBOR = "application/cbor";
+	private static final String SMILE = "application/x-jackson-smile";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	private Book book;
+	private Authentication reader;
+
+	@BeforeEach
+	void seed() {
+		book = createBook(createUser(), 2);
+		reader = authenticate(createUser());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {CBOR, SMILE})
+	void writesABookInTheAcceptedEncoding(String encoding) throws Exception {
+		byte[] body = mockMvc.perform(get("/books/{book-id}", book.getId())
+						.accept(encoding)
+						.with(authentication(reader)))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.parseMediaType(encoding)))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		JsonNode response = mapperFor(encoding).readTree(body);
+		assertThat(response.get("id").asInt()).isEqualTo(book.getId());
+		assertThat(response.get("title").asText()).isEqualTo(book.getTitle());
+		assertThat(response.get("copies").asInt()).isEqualTo(2);
+		assertThat(response.get("available").asBoolean()).isTrue();
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {CBOR, SMILE})
+	void appliesTheRequestedFieldsToEveryEncoding(String encoding) throws Exception {
+		byte[] body = mockMvc.perform(get("/books/{book-id}", book.getId())
+						.param("fields", "id,title")
+						.accept(encoding)
+						.with(authentication(reader)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+
+		JsonNode response = mapperFor(encoding).readTree(body);
+		assertThat(response.get("title").asText()).isEqualTo(book.getTitle());
+		assertThat(response.has("synopsis")).isFalse();
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {CBOR, SMILE})
+	void writesAPageInTheAcceptedEncoding(String encoding) throws Exception {
+		byte[] body = mockMvc.perform(get("/books")
+						.param("size", "5")
+						.accept(encoding)
+						.with(authentication(reader)))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.parseMediaType(encoding)))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		JsonNode response = mapperFor(encoding).readTree(body);
+		assertThat(response.get("content").isArray()).isTrue();
+		assertThat(response.get("content")).isNotEmpty();
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {CBOR, SMILE})
+	void doesNotValidateAJsonTagForAnotherEncoding(String encoding) throws Exception {
+		String jsonTag = mockMvc.perform(get("/books/{book-id}", book.getId())
+						.accept(MediaType.APPLICATION_JSON)
+						.with(authentication(reader)))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(get("/books/{book-id}", book.getId())
+						.accept(encoding)
+						.header(HttpHeaders.IF_NONE_MATCH, jsonTag)
+						.with(authentication(reader)))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, not(jsonTag)));
+		mockMvc.perform(get("/books/{book-id}", book.getId())
+						.accept(MediaType.APPLICATION_JSON)
+						.header(HttpHeaders.IF_NONE_MATCH, jsonTag)
+						.with(authentication(reader)))
+				.andExpect(status().isNotModified());
+	}
+
+	private static ObjectMapper mapperFor(String encoding) {
+		return CBOR.equals(encoding) ? new CBORMapper() : new SmileMapper();
+	}
+}
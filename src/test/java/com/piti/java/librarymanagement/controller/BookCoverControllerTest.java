@@ -0,0 +1,95 @@
+package com.piti.java.librarymanagement.controller;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.piti.java.librarymanagement.PostgresIntegrationTest;
+import com.piti.java.librarymanagement.model.Book;
+import com.piti.java.librarymanagement.model.User;
+
+@AutoConfigureMockMvc
+class BookCoverControllerTest extends PostgresIntegrationTest {
+	private static final byte[] COVER = {1, 2, 3};
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@TempDir
+	private Path uploads;
+
+	@Test
+	void answersNotFoundForAnUnknownBook() throws Exception {
+		mockMvc.perform(get("/books/{book-id}/cover", Integer.MAX_VALUE))
+				.andExpect(status().isNotFound())
+				.andExpect(jsonPath("$.error").exists());
+	}
+
+	@Test
+	void answersNotFoundForABookWithoutCover() throws Exception {
+		Book book = createBook(createUser(), 1);
+
+		mockMvc.perform(get("/books/{book-id}/cover", book.getId()))
+				.andExpect(status().isNotFound())
+				.andExpect(jsonPath("$.error").exists());
+	}
+
+	@Test
+	void hidesTheCoverOfAnArchivedBookFromOtherUsers() throws Exception {
+		User owner = createUser();
+		Book book = archivedBookWithCover(owner);
+
+		mockMvc.perform(get("/books/{book-id}/cover", book.getId()))
+				.andExpect(status().isNotFound());
+		mockMvc.perform(get("/books/{book-id}/cover", book.getId())
+						.with(authentication(authenticate(createUser()))))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void servesTheCoverOfAnArchivedBookToItsOwner() throws Exception {
+		User owner = createUser();
+		Book book = archivedBookWithCover(owner);
+
+		mockMvc.perform(get("/books/{book-id}/cover", book.getId())
+						.with(authentication(authenticate(owner))))
+				.andExpect(status().isOk())
+				.andExpect(content().bytes(COVER));
+	}
+
+	@Test
+	void versionsTheCoverUrlWithTheStoredFile() throws Exception {
+		Book book = bookWithCover(createUser(), "1700000000000.jpg");
+
+		mockMvc.perform(get("/books/{book-id}", book.getId())
+						.with(authentication(authenticate(createUser()))))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.coverUrl")
+						.value(endsWith("/books/" + book.getId() + "/cover?size=DETAIL&v=" + book.getId() + "-1700000000000.jpg")));
+	}
+
+	private Book archivedBookWithCover(User owner) throws Exception {
+		Book book = bookWithCover(owner, "cover.jpg");
+		book.setArchived(true);
+		return bookRepository.save(book);
+	}
+
+	private Book bookWithCover(User owner, String fileName) throws Exception {
+		Book book = createBook(owner, 1);
+		Path cover = Files.write(uploads.resolve(book.getId() + "-" + fileName), COVER);
+		book.setBookCover(cover.toString());
+		return bookRepository.save(book);
+	}
+}
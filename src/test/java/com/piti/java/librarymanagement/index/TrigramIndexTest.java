@@ -0,0 +1,47 @@
+package com.piti.java.librarymanagement.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Test;
+
+class TrigramIndexTest {
+
+	@Test
+	void matchesTitlesAndAuthorsDespiteTypos() {
+		TrigramIndex index = new TrigramIndex();
+		index.index(1, "Harry Potter and the Philosopher's Stone", "J. K. Rowling");
+		index.index(2, "The Hobbit", "J. R. R. Tolkien");
+		index.index(3, "The Lord of the Rings", "J. R. R. Tolkien");
+
+		assertThat(index.search("hary poter", 10)).containsExactly(1);
+		assertThat(index.search("tolkein", 10)).containsExactlyInAnyOrder(2, 3);
+		assertThat(index.search("hobit", 10)).containsExactly(2);
+	}
+
+	@Test
+	void forgetsThePreviousTextOfAReindexedBook() {
+		TrigramIndex index = new TrigramIndex();
+		index.index(1, "The Hobbit", "J. R. R. Tolkien");
+		index.index(1, "The Silmarillion", "J. R. R. Tolkien");
+
+		assertThat(index.search("hobbit", 10)).isEmpty();
+		assertThat(index.search("silmarillion", 10)).containsExactly(1);
+	}
+
+	@Test
+	void skipsThePostingListsOfCommonTrigrams() {
+		TrigramIndex index = new TrigramIndex();
+		int books = 10_000;
+		for (int id = 1; id <= books; id++) {
+			index.index(id, "The History of the World", "Anonymous");
+		}
+		index.index(books + 1, "The Silmarillion", "J. R. R. Tolkien");
+		LongAdder postingsRead = new LongAdder();
+
+		assertThat(index.search("the silmarilion", 10, postingsRead)).containsExactly(books + 1);
+		// Walking every list would read the four trigrams of "the" in every title, 40 000 entries
+		assertThat(postingsRead.sum()).isLessThan(1_000);
+	}
+}
@@ -0,0 +1,66 @@
+package com.piti.java.librarymanagement.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import com.piti.java.librarymanagement.index.IsbnIndex;
+import com.piti.java.librarymanagement.index.TrigramIndex;
+import com.piti.java.librarymanagement.repository.BookRepository;
+import com.piti.java.librarymanagement.repository.projection.BookTextView;
+import com.piti.java.librarymanagement.validation.IsbnUtils;
+
+@ExtendWith(MockitoExtension.class)
+class BookIndexRebuildJobTest {
+	private static final String DOMAIN_DRIVEN_DESIGN = "9780321125217";
+	private static final String REFACTORING = "9780134757599";
+	private static final String CLEAN_CODE = "9780132350884";
+
+	@Mock
+	private BookRepository bookRepository;
+
+	private final TrigramIndex trigramIndex = new TrigramIndex();
+	private final IsbnIndex isbnIndex = new IsbnIndex();
+
+	@Test
+	void keepsTheBooksSavedWhileTheSnapshotIsRead() {
+		// Book 1 is updated and book 2 created by saves committing after the snapshot was read
+		when(bookRepository.findTextViewsAfter(eq(0), any(Pageable.class))).thenAnswer(invocation -> {
+			trigramIndex.index(1, "Refactoring", "Martin Fowler");
+			isbnIndex.put(1, IsbnUtils.pack(REFACTORING));
+			trigramIndex.index(2, "Clean Code", "Robert Martin");
+			isbnIndex.put(2, IsbnUtils.pack(CLEAN_CODE));
+			return List.of(new BookTextView(1, "Domain Driven Design", "Eric Evans", DOMAIN_DRIVEN_DESIGN));
+		});
+
+		new BookIndexRebuildJob(bookRepository, trigramIndex, isbnIndex).rebuild();
+
+		assertThat(trigramIndex.search("refactoring", 10)).containsExactly(1);
+		assertThat(trigramIndex.search("clean code", 10)).containsExactly(2);
+		assertThat(trigramIndex.search("domain driven design", 10)).isEmpty();
+		assertThat(isbnIndex.find(IsbnUtils.pack(REFACTORING))).containsExactly(1);
+		assertThat(isbnIndex.find(IsbnUtils.pack(CLEAN_CODE))).containsExactly(2);
+		assertThat(isbnIndex.contains(IsbnUtils.pack(DOMAIN_DRIVEN_DESIGN))).isFalse();
+	}
+
+	@Test
+	void indexesTheSnapshotOfBooksNotSavedDuringTheRebuild() {
+		trigramIndex.index(1, "Domain Driven Design", "Eric Evans");
+		when(bookRepository.findTextViewsAfter(eq(0), any(Pageable.class)))
+				.thenReturn(List.of(new BookTextView(1, "Domain Driven Design", "Eric Evans", DOMAIN_DRIVEN_DESIGN)));
+
+		new BookIndexRebuildJob(bookRepository, trigramIndex, isbnIndex).rebuild();
+
+		assertThat(trigramIndex.search("domain driven design", 10)).containsExactly(1);
+		assertThat(isbnIndex.find(IsbnUtils.pack(DOMAIN_DRIVEN_DESIGN))).containsExactly(1);
+	}
+}
@@ -0,0 +1,137 @@
+package com.piti.java.librarymanagement.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.piti.java.librarymanagement.PostgresIntegrationTest;
+import com.piti.java.librarymanagement.exception.OperationNotPermittedException;
+import com.piti.java.librarymanagement.model.Book;
+import com.piti.java.librarymanagement.model.User;
+import com.piti.java.librarymanagement.service.BookService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Borrowers racing for the same book: the conditional copy decrement and the active
+ * borrower index must hold up without any application level locking.
+ */
+@Slf4j
+class BookBorrowConcurrencyTest extends PostgresIntegrationTest {
+	private static final int BORROWERS = 24;
+	private static final int BENCHMARK_BORROWERS = 500;
+	private static final int BENCHMARK_THREADS = 16;
+
+	@Autowired
+	private BookService bookService;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@ParameterizedTest(name = "{0} copies")
+	@ValueSource(ints = {1, 3})
+	void concurrentBorrowersGetAtMostOneLoanPerCopy(int copies) throws Exception {
+		Book book = createBook(createUser(), copies);
+		List<User> borrowers = IntStream.range(0, BORROWERS)
+				.mapToObj(i -> createUser())
+				.toList();
+
+		int refused = borrowConcurrently(book.getId(), borrowers, BORROWERS);
+
+		assertThat(activeLoans(book.getId())).isEqualTo(copies);
+		assertThat(availableCopies(book.getId())).isZero();
+		assertThat(refused).isEqualTo(BORROWERS - copies);
+	}
+
+	@Test
+	void concurrentBorrowsOfOneUserOpenASingleLoan() throws Exception {
+		Book book = createBook(createUser(), 5);
+		User borrower = createUser();
+
+		int refused = borrowConcurrently(book.getId(), Collections.nCopies(BORROWERS, borrower), BORROWERS);
+
+		assertThat(activeLoans(book.getId())).isEqualTo(1);
+		// The copies taken by the losing requests went back with their rollback
+		assertThat(availableCopies(book.getId())).isEqualTo(4);
+		assertThat(refused).isEqualTo(BORROWERS - 1);
+	}
+
+	@Test
+	@Tag("benchmark")
+	void borrowThroughputOnOneHotBook() throws Exception {
+		Book book = createBook(createUser(), BENCHMARK_BORROWERS);
+		List<User> borrowers = IntStream.range(0, BENCHMARK_BORROWERS)
+				.mapToObj(i -> createUser())
+				.toList();
+
+		long started = System.nanoTime();
+		int refused = borrowConcurrently(book.getId(), borrowers, BENCHMARK_THREADS);
+		Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+		log.info("{} borrows of one book on {} threads in {} ms, {} borrows/s", BENCHMARK_BORROWERS,
+				BENCHMARK_THREADS, elapsed.toMillis(), BENCHMARK_BORROWERS * 1000L / Math.max(1, elapsed.toMillis()));
+		assertThat(refused).isZero();
+		assertThat(activeLoans(book.getId())).isEqualTo(BENCHMARK_BORROWERS);
+	}
+
+	/**
+	 * Releases every borrow at once and returns how many were refused, any failure other
+	 * than {@link OperationNotPermittedException} fails the test.
+	 */
+	private int borrowConcurrently(Integer bookId, List<User> borrowers, int threads) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<Boolean>> borrows = borrowers.stream()
+					.map(borrower -> executor.submit(() -> {
+						Authentication authentication = authenticate(borrower);
+						try {
+							start.await();
+							bookService.borrowBook(bookId, authentication);
+							return true;
+						} catch (OperationNotPermittedException e) {
+							return false;
+						} finally {
+							SecurityContextHolder.clearContext();
+						}
+					}))
+					.toList();
+			start.countDown();
+			int refused = 0;
+			for (Future<Boolean> borrow : borrows) {
+				if (!borrow.get(1, TimeUnit.MINUTES)) {
+					refused++;
+				}
+			}
+			return refused;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private int activeLoans(Integer bookId) {
+		return jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM book_transaction_history WHERE book_id = ? AND return_approved = false",
+				Integer.class, bookId);
+	}
+
+	private int availableCopies(Integer bookId) {
+		return jdbcTemplate.queryForObject("SELECT available_copies FROM books WHERE id = ?", Integer.class, bookId);
+	}
+}
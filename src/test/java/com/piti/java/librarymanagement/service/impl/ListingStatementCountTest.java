@@ -0,0 +1,119 @@
+package com.piti.java.librarymanagement.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+
+import com.piti.java.librarymanagement.PostgresIntegrationTest;
+import com.piti.java.librarymanagement.dto.BookFields;
+import com.piti.java.librarymanagement.dto.CountMode;
+import com.piti.java.librarymanagement.model.Book;
+import com.piti.java.librarymanagement.model.BookTransactionHistory;
+import com.piti.java.librarymanagement.model.Feedback;
+import com.piti.java.librarymanagement.model.User;
+import com.piti.java.librarymanagement.repository.BookTransactionHistoryRepository;
+import com.piti.java.librarymanagement.repository.FeedBackRepository;
+import com.piti.java.librarymanagement.service.BookService;
+import com.piti.java.librarymanagement.service.FeedbackService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Every listing must run the same statements for a page of 1 and a page of 50,
+ * a lazy load per row would show up as a count growing with the page size.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ListingStatementCountTest extends PostgresIntegrationTest {
+	private static final int ROWS = 60;
+
+	@Autowired
+	private BookService bookService;
+	@Autowired
+	private FeedbackService feedbackService;
+	@Autowired
+	private BookTransactionHistoryRepository transactionHistoryRepository;
+	@Autowired
+	private FeedBackRepository feedBackRepository;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Authentication owner;
+	private Authentication reader;
+	private Integer reviewedBookId;
+
+	@BeforeAll
+	void seed() {
+		User bookOwner = createUser();
+		User borrower = createUser();
+		List<Book> books = IntStream.range(0, ROWS)
+				.mapToObj(i -> createBook(bookOwner, 1))
+				.toList();
+		transactionHistoryRepository.saveAll(books.stream()
+				.map(book -> BookTransactionHistory.builder()
+						.user(borrower)
+						.book(book)
+						.ownerId(bookOwner.getId())
+						.returned(true)
+						.createdBy(borrower.getId())
+						.build())
+				.toList());
+		Book reviewedBook = books.get(0);
+		feedBackRepository.saveAll(IntStream.range(0, ROWS)
+				.mapToObj(i -> Feedback.builder()
+						.note(4.0)
+						.comment("Feedback " + i)
+						.book(reviewedBook)
+						.createdBy(borrower.getId())
+						.build())
+				.toList());
+		owner = authenticate(bookOwner);
+		reader = authenticate(borrower);
+		reviewedBookId = reviewedBook.getId();
+	}
+
+	Stream<Arguments> listings() {
+		return Stream.of(
+				listing("books", size -> bookService.findAllBooks(0, size, CountMode.EXACT, BookFields.ALL, reader).getContent()),
+				listing("books by cursor", size -> bookService.findAllBooks(null, size, BookFields.ALL, reader).getContent()),
+				listing("owner books", size -> bookService.findAllBooksByOwner(0, size, CountMode.EXACT, BookFields.ALL, owner).getContent()),
+				listing("owner books by cursor", size -> bookService.findAllBooksByOwner(null, size, BookFields.ALL, owner).getContent()),
+				listing("borrowed books", size -> bookService.findAllBorrowedBooks(0, size, CountMode.EXACT, reader).getContent()),
+				listing("borrowed books by cursor", size -> bookService.findAllBorrowedBooks(null, size, reader).getContent()),
+				listing("returned books", size -> bookService.findAllReturnedBooks(0, size, CountMode.EXACT, owner).getContent()),
+				listing("returned books by cursor", size -> bookService.findAllReturnedBooks(null, size, owner).getContent()),
+				listing("feedbacks", size -> feedbackService.findAllFeedbacksByBook(reviewedBookId, 0, size, reader).getContent()));
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("listings")
+	void runsTheSameStatementsWhateverThePageSize(String name, IntFunction<List<?>> listing) {
+		long singleRow = preparedStatements(listing, 1);
+		long fullPage = preparedStatements(listing, 50);
+
+		assertThat(fullPage).isEqualTo(singleRow);
+	}
+
+	private long preparedStatements(IntFunction<List<?>> listing, int size) {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		assertThat(listing.apply(size)).hasSize(size);
+		return statistics.getPrepareStatementCount();
+	}
+
+	private static Arguments listing(String name, IntFunction<List<?>> listing) {
+		return Arguments.of(name, listing);
+	}
+}